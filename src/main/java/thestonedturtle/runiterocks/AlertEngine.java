@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.RequiredArgsConstructor;
+import net.runelite.api.ChatMessageType;
+import net.runelite.client.Notifier;
+import net.runelite.client.chat.ChatColorType;
+import net.runelite.client.chat.ChatMessageBuilder;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.chat.QueuedMessage;
+
+/**
+ * Evaluates the {@link AlertRule}s incrementally. Rocks are only checked against the rules when they change state
+ * or when a rule with a respawn window reaches the tick a rock starts matching it, each rule keeps the rocks that
+ * currently match it and fires once the number of matches reaches its count.
+ * <p>
+ * Rock changes arrive on the client thread while rocks can be removed from the panel on the EDT.
+ */
+@Singleton
+class AlertEngine
+{
+	private static final int MAX_LISTED_ROCKS = 5;
+
+	private final Notifier notifier;
+	private final ChatMessageManager chatMessageManager;
+	private final GameClock clock;
+
+	private final List<RuleState> rules = new ArrayList<>();
+	private final PriorityQueue<Timer> timers = new PriorityQueue<>(Comparator.comparingLong(t -> t.tick));
+	private String rulesText = null;
+
+	@Inject
+	private AlertEngine(final Notifier notifier, final ChatMessageManager chatMessageManager, final GameClock clock)
+	{
+		this.notifier = notifier;
+		this.chatMessageManager = chatMessageManager;
+		this.clock = clock;
+	}
+
+	synchronized void onRockChanged(final RuniteRock rock)
+	{
+		final long now = clock.now();
+		for (final RuleState state : rules)
+		{
+			evaluate(state, rock, now);
+		}
+	}
+
+	synchronized void onRockRemoved(final int world, final Rock rock)
+	{
+		final long key = key(world, rock);
+		for (final RuleState state : rules)
+		{
+			if (state.matches.remove(key) != null)
+			{
+				state.dirty = true;
+			}
+			cancelTimer(state, key);
+		}
+	}
+
+	/**
+	 * Recompiles the rules if the text changed, runs the expired timers and fires the rules whose matches changed
+	 *
+	 * @param trackers only scanned when the rules are recompiled
+	 */
+	synchronized void onGameTick(final String text, final Collection<WorldTracker> trackers)
+	{
+		final long now = clock.now();
+		if (!Objects.equals(text, rulesText))
+		{
+			compile(text, trackers, now);
+		}
+
+		while (!timers.isEmpty() && timers.peek().tick <= now)
+		{
+			final Timer timer = timers.poll();
+			if (timer.cancelled)
+			{
+				continue;
+			}
+
+			timer.state.timers.remove(timer.key);
+			evaluate(timer.state, timer.rock, now);
+		}
+
+		for (final RuleState state : rules)
+		{
+			if (!state.dirty)
+			{
+				continue;
+			}
+
+			state.dirty = false;
+			if (state.matches.size() < state.rule.getMinCount())
+			{
+				state.fired = false;
+			}
+			else if (!state.fired)
+			{
+				state.fired = true;
+				fire(state);
+			}
+		}
+	}
+
+	synchronized void clear()
+	{
+		rules.clear();
+		timers.clear();
+		rulesText = null;
+	}
+
+	private void compile(final String text, final Collection<WorldTracker> trackers, final long now)
+	{
+		rulesText = text;
+		rules.clear();
+		timers.clear();
+
+		final List<String> errors = new ArrayList<>();
+		for (final AlertRule rule : AlertRule.parseAll(text, errors))
+		{
+			rules.add(new RuleState(rule));
+		}
+
+		for (final String error : errors)
+		{
+			sendChatMessage(error);
+		}
+
+		// Only a rules change needs every known rock, afterwards rocks are evaluated as they change
+		for (final WorldTracker tracker : trackers)
+		{
+			for (final RuniteRock rock : tracker.getRuniteRocks())
+			{
+				for (final RuleState state : rules)
+				{
+					evaluate(state, rock, now);
+				}
+			}
+		}
+
+		// Rules that already match when they are added shouldn't alert until they stop matching
+		for (final RuleState state : rules)
+		{
+			state.dirty = false;
+			state.fired = state.matches.size() >= state.rule.getMinCount();
+		}
+	}
+
+	private void evaluate(final RuleState state, final RuniteRock rock, final long now)
+	{
+		final long key = key(rock.getWorld().getId(), rock.getRock());
+		final long matchTick = state.rule.getMatchTick(rock);
+		if (matchTick <= now)
+		{
+			cancelTimer(state, key);
+			state.dirty |= state.matches.put(key, rock) == null;
+			return;
+		}
+
+		state.dirty |= state.matches.remove(key) != null;
+		if (matchTick == Long.MAX_VALUE)
+		{
+			cancelTimer(state, key);
+			return;
+		}
+
+		// Keep at most one pending timer for each rule and rock
+		final Timer pending = state.timers.get(key);
+		if (pending != null && pending.tick == matchTick && pending.rock == rock)
+		{
+			return;
+		}
+
+		cancelTimer(state, key);
+		final Timer timer = new Timer(matchTick, key, state, rock);
+		state.timers.put(key, timer);
+		timers.add(timer);
+	}
+
+	/**
+	 * Cancelled timers are left in the queue and skipped once they expire, removing them would be O(n)
+	 */
+	private static void cancelTimer(final RuleState state, final long key)
+	{
+		final Timer timer = state.timers.remove(key);
+		if (timer != null)
+		{
+			timer.cancelled = true;
+		}
+	}
+
+	private void fire(final RuleState state)
+	{
+		final StringBuilder message = new StringBuilder("Runite Rocks alert (")
+			.append(state.rule.getSource())
+			.append("):");
+
+		int listed = 0;
+		for (final RuniteRock rock : state.matches.values())
+		{
+			if (listed++ == MAX_LISTED_ROCKS)
+			{
+				message.append(" ...");
+				break;
+			}
+
+			message.append(" W").append(rock.getWorld().getId()).append(' ').append(rock.getRock().getName());
+		}
+
+		notifier.notify(message.toString());
+		sendChatMessage(message.toString());
+	}
+
+	private void sendChatMessage(final String text)
+	{
+		final String chatMessage = new ChatMessageBuilder()
+			.append(ChatColorType.HIGHLIGHT)
+			.append(text)
+			.build();
+
+		chatMessageManager
+			.queue(QueuedMessage.builder()
+				.type(ChatMessageType.CONSOLE)
+				.runeLiteFormattedMessage(chatMessage)
+				.build());
+	}
+
+	private static long key(final int world, final Rock rock)
+	{
+		return ((long) world << 32) | rock.getId();
+	}
+
+	private static class RuleState
+	{
+		private final AlertRule rule;
+		private final Map<Long, RuniteRock> matches = new HashMap<>();
+		// Pending timer for each rock that will start matching later
+		private final Map<Long, Timer> timers = new HashMap<>();
+		private boolean dirty = false;
+		private boolean fired = false;
+
+		private RuleState(final AlertRule rule)
+		{
+			this.rule = rule;
+		}
+	}
+
+	@RequiredArgsConstructor
+	private static class Timer
+	{
+		private final long tick;
+		private final long key;
+		private final RuleState state;
+		private final RuniteRock rock;
+		private boolean cancelled = false;
+	}
+}
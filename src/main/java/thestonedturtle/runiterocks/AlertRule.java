@@ -0,0 +1,203 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+import lombok.Getter;
+import net.runelite.http.api.worlds.WorldType;
+
+/**
+ * An alert compiled from a single line of the alert rules config.
+ * <p>
+ * A rule is a list of {@code ;} separated conditions that must all match a rock, for example
+ * {@code at least 2; world is MEMBERS; world not PVP; respawn within 60} or {@code location lava maze; available}.
+ * <ul>
+ * <li>{@code location <text>} the rocks location contains the text</li>
+ * <li>{@code rock <key or name>} the rock is the given rock, e.g. {@code LAVA_MINE_1} or {@code LM1}</li>
+ * <li>{@code world <id>} the rock is on the given world</li>
+ * <li>{@code world is <type>} / {@code world not <type>} the world does or doesn't have the {@link WorldType}</li>
+ * <li>{@code available} the rock has been seen available</li>
+ * <li>{@code respawn within <seconds>} the rock is available or will respawn within the given time</li>
+ * <li>{@code at least <count>} the alert only fires once this many rocks match, defaults to 1</li>
+ * </ul>
+ */
+@Getter
+public class AlertRule
+{
+	private final String source;
+	// Conditions that only change when the rock changes state
+	private final Predicate<RuniteRock> filter;
+	// Ticks before the respawn the rock starts matching, -1 if the rule has no time condition
+	private final int withinTicks;
+	private final int minCount;
+
+	private AlertRule(final String source, final Predicate<RuniteRock> filter, final int withinTicks, final int minCount)
+	{
+		this.source = source;
+		this.filter = filter;
+		this.withinTicks = withinTicks;
+		this.minCount = minCount;
+	}
+
+	/**
+	 * @return the tick the rock starts matching this rule, {@link Long#MAX_VALUE} if it can't match until it changes
+	 */
+	public long getMatchTick(final RuniteRock rock)
+	{
+		if (!filter.test(rock))
+		{
+			return Long.MAX_VALUE;
+		}
+
+		if (withinTicks < 0 || rock.isAvailable())
+		{
+			return Long.MIN_VALUE;
+		}
+
+		return rock.getRespawnTick() - withinTicks;
+	}
+
+	/**
+	 * Parses every non blank line that doesn't start with {@code #}
+	 *
+	 * @param errors receives a message for each line that couldn't be parsed
+	 */
+	public static List<AlertRule> parseAll(final String text, final List<String> errors)
+	{
+		final List<AlertRule> rules = new ArrayList<>();
+		if (text == null)
+		{
+			return rules;
+		}
+
+		for (final String line : text.split("\n"))
+		{
+			final String trimmed = line.trim();
+			if (trimmed.isEmpty() || trimmed.startsWith("#"))
+			{
+				continue;
+			}
+
+			try
+			{
+				rules.add(parse(trimmed));
+			}
+			catch (IllegalArgumentException e)
+			{
+				errors.add(e.getMessage());
+			}
+		}
+
+		return rules;
+	}
+
+	public static AlertRule parse(final String line)
+	{
+		Predicate<RuniteRock> filter = rock -> true;
+		int withinTicks = -1;
+		int minCount = 1;
+
+		for (final String part : line.split(";"))
+		{
+			final String condition = part.trim().replaceAll("\\s+", " ");
+			final String lower = condition.toLowerCase(Locale.ROOT);
+			if (condition.isEmpty())
+			{
+				continue;
+			}
+
+			if (lower.equals("available"))
+			{
+				filter = filter.and(RuniteRock::isAvailable);
+			}
+			else if (lower.startsWith("respawn within "))
+			{
+				final int seconds = parseNumber(condition, lower.substring("respawn within ".length()).replaceAll("s$", ""));
+				withinTicks = (int) GameClock.millisToTicks(seconds * 1000L);
+			}
+			else if (lower.startsWith("at least "))
+			{
+				minCount = Math.max(1, parseNumber(condition, lower.substring("at least ".length())));
+			}
+			else if (lower.startsWith("location "))
+			{
+				final String location = lower.substring("location ".length());
+				filter = filter.and(rock -> rock.getRock().getLocation().toLowerCase(Locale.ROOT).contains(location));
+			}
+			else if (lower.startsWith("rock "))
+			{
+				final String name = condition.substring("rock ".length());
+				filter = filter.and(rock -> rock.getRock().getKey().equalsIgnoreCase(name) || rock.getRock().getName().equalsIgnoreCase(name));
+			}
+			else if (lower.startsWith("world is ") || lower.startsWith("world not "))
+			{
+				final boolean negate = lower.startsWith("world not ");
+				final WorldType type = parseWorldType(condition, condition.substring(negate ? "world not ".length() : "world is ".length()));
+				final Predicate<RuniteRock> hasType = rock -> rock.getWorld().getTypes().contains(type);
+				filter = filter.and(negate ? hasType.negate() : hasType);
+			}
+			else if (lower.startsWith("world "))
+			{
+				final int world = parseNumber(condition, lower.substring("world ".length()));
+				filter = filter.and(rock -> rock.getWorld().getId() == world);
+			}
+			else
+			{
+				throw new IllegalArgumentException("Unknown alert condition: " + condition);
+			}
+		}
+
+		return new AlertRule(line, filter, withinTicks, minCount);
+	}
+
+	private static int parseNumber(final String condition, final String number)
+	{
+		try
+		{
+			return Integer.parseInt(number.trim());
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException("Expected a number in alert condition: " + condition);
+		}
+	}
+
+	private static WorldType parseWorldType(final String condition, final String type)
+	{
+		try
+		{
+			return WorldType.valueOf(type.trim().toUpperCase(Locale.ROOT).replace(' ', '_'));
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IllegalArgumentException("Unknown world type in alert condition: " + condition
+				+ ", expected one of " + EnumSet.allOf(WorldType.class));
+		}
+	}
+}
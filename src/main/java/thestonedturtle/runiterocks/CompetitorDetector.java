@@ -0,0 +1,182 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.Player;
+import net.runelite.api.coords.LocalPoint;
+
+/**
+ * Counts the other players standing around the rocks in the loaded scene.
+ * <p>
+ * A bounding box in scene coordinates is calculated for each rock once per scene load, afterwards each check is a
+ * single pass over the player list comparing against the boxes without allocating any collections. Checks only run
+ * while the local player is in a region that contains a rock.
+ */
+@Singleton
+class CompetitorDetector
+{
+	// Tiles around the rock a player counts as competing for it
+	static final int RADIUS_TILES = 4;
+	private static final int MAX_ROCKS = ResourceCatalog.getInstance().size();
+	private static final int REGION_SIZE = 64;
+
+	private final Client client;
+
+	private final Rock[] rocks = new Rock[MAX_ROCKS];
+	private final int[] minX = new int[MAX_ROCKS];
+	private final int[] maxX = new int[MAX_ROCKS];
+	private final int[] minY = new int[MAX_ROCKS];
+	private final int[] maxY = new int[MAX_ROCKS];
+	private final int[] planes = new int[MAX_ROCKS];
+	private final int[] counts = new int[MAX_ROCKS];
+	private int count = 0;
+
+	private boolean stale = true;
+
+	@Inject
+	private CompetitorDetector(final Client client)
+	{
+		this.client = client;
+	}
+
+	/**
+	 * Should be called whenever a new scene is loaded
+	 */
+	void invalidate()
+	{
+		stale = true;
+	}
+
+	/**
+	 * Updates the competitor count of the rocks around the local player
+	 *
+	 * @param changed rocks whose competitor count changed are added to this collection
+	 */
+	void detect(final WorldTracker tracker, final Collection<RuniteRock> changed)
+	{
+		if (stale)
+		{
+			locateRocks();
+		}
+
+		final Player localPlayer = client.getLocalPlayer();
+		if (count == 0 || localPlayer == null)
+		{
+			return;
+		}
+
+		// RuneLite has no allocation free way to read an actors position, the local point is the cheapest
+		final LocalPoint localPoint = localPlayer.getLocalLocation();
+		final int regionX = (client.getBaseX() + localPoint.getSceneX()) / REGION_SIZE;
+		final int regionY = (client.getBaseY() + localPoint.getSceneY()) / REGION_SIZE;
+		if (ResourceCatalog.getInstance().getByRegion(regionX << 8 | regionY).length == 0)
+		{
+			return;
+		}
+
+		Arrays.fill(counts, 0, count, 0);
+		final List<Player> players = client.getPlayers();
+		for (int p = 0; p < players.size(); p++)
+		{
+			final Player player = players.get(p);
+			if (player == null || player == localPlayer)
+			{
+				continue;
+			}
+
+			final LocalPoint point = player.getLocalLocation();
+			final int x = point.getSceneX();
+			final int y = point.getSceneY();
+			// Players on other floors can share the scene tile, the plane is only read for players inside a box
+			int plane = -1;
+			for (int i = 0; i < count; i++)
+			{
+				if (x < minX[i] || x > maxX[i] || y < minY[i] || y > maxY[i])
+				{
+					continue;
+				}
+
+				if (plane == -1)
+				{
+					plane = player.getWorldLocation().getPlane();
+				}
+
+				if (planes[i] == plane)
+				{
+					counts[i]++;
+				}
+			}
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			final RuniteRock rock = tracker.getRuniteRock(rocks[i]);
+			if (rock != null && rock.getCompetitors() != counts[i])
+			{
+				rock.setCompetitors(counts[i]);
+				changed.add(rock);
+			}
+		}
+	}
+
+	private void locateRocks()
+	{
+		count = 0;
+		final ResourceCatalog catalog = ResourceCatalog.getInstance();
+		final int[] regions = client.getMapRegions();
+		if (regions == null)
+		{
+			return;
+		}
+
+		for (final int region : regions)
+		{
+			for (final Rock rock : catalog.getByRegion(region))
+			{
+				final LocalPoint localPoint = LocalPoint.fromWorld(client, rock.getWorldPoint());
+				if (localPoint == null)
+				{
+					continue;
+				}
+
+				rocks[count] = rock;
+				minX[count] = localPoint.getSceneX() - RADIUS_TILES;
+				maxX[count] = localPoint.getSceneX() + RADIUS_TILES;
+				minY[count] = localPoint.getSceneY() - RADIUS_TILES;
+				maxY[count] = localPoint.getSceneY() + RADIUS_TILES;
+				planes[count] = rock.getWorldPoint().getPlane();
+				count++;
+			}
+		}
+
+		stale = false;
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import lombok.Value;
+
+/**
+ * Immutable copy of {@link RuniteRocksConfig} so hot paths don't go through the config proxy.
+ * A new snapshot is taken whenever the config changes.
+ */
+@Value
+public class ConfigSnapshot
+{
+	boolean respawnCounter;
+	boolean visitCounter;
+	boolean accurateRespawnPriority;
+	boolean ignoreInaccurate;
+	boolean doubleLeftClickToHop;
+	boolean showOverlay;
+	int overlayRockCount;
+	boolean highlightRockTiles;
+	boolean autoHop;
+	boolean recordHistory;
+	int eventBudgetMicros;
+	String alertRules;
+	int maxContention;
+	boolean pushServer;
+	int pushServerPort;
+
+	public static ConfigSnapshot of(final RuniteRocksConfig config)
+	{
+		return new ConfigSnapshot(
+			config.respawnCounter(),
+			config.visitCounter(),
+			config.accurateRespawnPriority(),
+			config.ignoreInaccurate(),
+			config.doubleLeftClickToHop(),
+			config.showOverlay(),
+			config.overlayRockCount(),
+			config.highlightRockTiles(),
+			config.autoHop(),
+			config.recordHistory(),
+			config.eventBudgetMicros(),
+			config.alertRules(),
+			config.maxContention(),
+			config.pushServer(),
+			config.pushServerPort()
+		);
+	}
+}
@@ -0,0 +1,293 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * Tracks per world and rock how often the rock is taken by someone else.
+ * <p>
+ * Every depletion we didn't witness counts as fully contended. A depletion we did witness only counts while other
+ * players were around the rock, so the users own mining isn't scored, and is weighted by how quickly the rock was mined
+ * after respawning when that respawn was seen as well. The samples are added to a score that halves every
+ * {@link #HALF_LIFE_MILLIS} so worlds that stop being botted recover over time.
+ * <p>
+ * Updates come from rock transitions on the client thread while the panel reads the scores on the EDT.
+ */
+@Slf4j
+@Singleton
+class ContentionStats
+{
+	static final String CONFIG_KEY = "contentionStats";
+	private static final Type SAVED_TYPE = new TypeToken<List<SavedEntry>>()
+	{
+	}.getType();
+
+	private static final long HALF_LIFE_MILLIS = 12 * 60 * 60 * 1000L;
+	// A rock mined within this many ticks of respawning counts as fully contended
+	private static final long FAST_DEPLETION_TICKS = 100;
+
+	private final ConfigManager configManager;
+	private final Gson gson;
+	private final GameClock clock;
+
+	private final Map<Long, Entry> entries = new HashMap<>();
+	private boolean dirty = false;
+
+	@Inject
+	private ContentionStats(final ConfigManager configManager, final Gson gson, final GameClock clock)
+	{
+		this.configManager = configManager;
+		this.gson = gson;
+		this.clock = clock;
+	}
+
+	/**
+	 * @param previousUpdatedTick the rocks updated tick before the transition
+	 */
+	synchronized void onTransition(final RuniteRock rock, final RockState previousState, final long previousUpdatedTick)
+	{
+		if (rock.isAvailable())
+		{
+			return;
+		}
+
+		final double sample;
+		final boolean timed;
+		if (previousState == RockState.AVAILABLE)
+		{
+			// We were there when it was mined, only count it if someone else was around to take it
+			timed = rock.hasWitnessedRespawn();
+			if (rock.getCompetitors() == 0)
+			{
+				sample = 0;
+			}
+			else if (timed)
+			{
+				final long availableTicks = Math.max(1, rock.getUpdatedTick() - previousUpdatedTick);
+				sample = Math.min(1.0, (double) FAST_DEPLETION_TICKS / availableTicks);
+			}
+			else
+			{
+				sample = 1.0;
+			}
+		}
+		else if (previousState == RockState.DEPLETED)
+		{
+			// The respawn passed without us seeing the rock available, someone else mined it
+			timed = false;
+			sample = 1.0;
+		}
+		else
+		{
+			// First sighting, there's nothing to compare against
+			return;
+		}
+
+		final long key = key(rock.getWorld().getId(), rock.getRock());
+		final Entry entry = entries.computeIfAbsent(key, k -> new Entry(rock.getWorld().getId(), rock.getRock().getKey()));
+		if (previousState == RockState.AVAILABLE)
+		{
+			entry.witnessed++;
+		}
+		else
+		{
+			entry.unwitnessed++;
+		}
+
+		// Only time depletions from a respawn we saw, otherwise the rock may have been up for longer
+		if (timed)
+		{
+			entry.timed++;
+			entry.availableTicks += rock.getUpdatedTick() - previousUpdatedTick;
+		}
+
+		final long now = clock.toEpochMillis(rock.getUpdatedTick());
+		entry.score = entry.decayedScore(now) + sample;
+		entry.scoreMillis = now;
+		dirty = true;
+	}
+
+	/**
+	 * @return the decayed contention score, 0 if the rock has no recorded depletions
+	 */
+	synchronized double getScore(final int world, final Rock rock, final long nowMillis)
+	{
+		final Entry entry = entries.get(key(world, rock));
+		return entry == null ? 0 : entry.decayedScore(nowMillis);
+	}
+
+	/**
+	 * @return a short human readable summary of the rocks contention
+	 */
+	synchronized String describe(final int world, final Rock rock)
+	{
+		final Entry entry = entries.get(key(world, rock));
+		if (entry == null)
+		{
+			return "No depletions recorded";
+		}
+
+		final String score = String.format("Contention %.1f: %d unseen / %d seen depletions", entry.decayedScore(clock.currentEpochMillis()), entry.unwitnessed, entry.witnessed);
+		if (entry.timed == 0)
+		{
+			return score;
+		}
+
+		final long averageMillis = GameClock.ticksToMillis(entry.availableTicks / entry.timed);
+		return score + String.format(", mined %.0fs after respawn on average", averageMillis / 1000.0);
+	}
+
+	synchronized void load()
+	{
+		entries.clear();
+
+		final String json = configManager.getConfiguration(RuniteRocksConfig.GROUP, CONFIG_KEY);
+		if (json == null || json.isEmpty())
+		{
+			return;
+		}
+
+		final List<SavedEntry> saved;
+		try
+		{
+			saved = gson.fromJson(json, SAVED_TYPE);
+		}
+		catch (JsonSyntaxException e)
+		{
+			log.warn("Unable to parse saved contention stats", e);
+			return;
+		}
+
+		if (saved == null)
+		{
+			return;
+		}
+
+		final ResourceCatalog catalog = ResourceCatalog.getInstance();
+		for (final SavedEntry savedEntry : saved)
+		{
+			final Rock rock = catalog.getByKey(savedEntry.rock);
+			if (rock == null)
+			{
+				continue;
+			}
+
+			final Entry entry = new Entry(savedEntry.world, savedEntry.rock);
+			entry.witnessed = savedEntry.witnessed;
+			entry.unwitnessed = savedEntry.unwitnessed;
+			entry.timed = savedEntry.timed;
+			// Stats saved before timed depletions were tracked separately summed every witnessed depletion
+			entry.availableTicks = savedEntry.timed == 0 ? 0 : savedEntry.availableTicks;
+			entry.score = savedEntry.score;
+			entry.scoreMillis = savedEntry.scoreMillis;
+			entries.put(key(savedEntry.world, rock), entry);
+		}
+	}
+
+	/**
+	 * Persists the stats if any depletions have been recorded since the last save
+	 */
+	synchronized void save()
+	{
+		if (!dirty)
+		{
+			return;
+		}
+
+		final List<SavedEntry> saved = new ArrayList<>(entries.size());
+		for (final Entry entry : entries.values())
+		{
+			final SavedEntry savedEntry = new SavedEntry();
+			savedEntry.world = entry.world;
+			savedEntry.rock = entry.rock;
+			savedEntry.witnessed = entry.witnessed;
+			savedEntry.unwitnessed = entry.unwitnessed;
+			savedEntry.timed = entry.timed;
+			savedEntry.availableTicks = entry.availableTicks;
+			savedEntry.score = entry.score;
+			savedEntry.scoreMillis = entry.scoreMillis;
+			saved.add(savedEntry);
+		}
+
+		configManager.setConfiguration(RuniteRocksConfig.GROUP, CONFIG_KEY, gson.toJson(saved, SAVED_TYPE));
+		dirty = false;
+	}
+
+	private static long key(final int world, final Rock rock)
+	{
+		return ((long) world << 32) | rock.getId();
+	}
+
+	private static class Entry
+	{
+		private final int world;
+		private final String rock;
+		private int witnessed;
+		private int unwitnessed;
+		// Witnessed depletions whose respawn was seen as well
+		private int timed;
+		// Total ticks the timed depletions were available for before being mined
+		private long availableTicks;
+		private double score;
+		private long scoreMillis;
+
+		private Entry(final int world, final String rock)
+		{
+			this.world = world;
+			this.rock = rock;
+		}
+
+		private double decayedScore(final long nowMillis)
+		{
+			final long elapsed = Math.max(0, nowMillis - scoreMillis);
+			return score * Math.pow(0.5, (double) elapsed / HALF_LIFE_MILLIS);
+		}
+	}
+
+	// Saved by rock key as the rock ids depend on the order of the catalog
+	private static class SavedEntry
+	{
+		private int world;
+		private String rock;
+		private int witnessed;
+		private int unwitnessed;
+		private int timed;
+		private long availableTicks;
+		private double score;
+		private long scoreMillis;
+	}
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Monotonic clock measured in game ticks.
+ * <p>
+ * While logged in the clock advances with the clients tick count. Between game ticks, and while no ticks are
+ * received (hopping, login screen), the current tick is estimated from {@link System#nanoTime()} since rocks keep
+ * respawning server side. Wall clock time is only used to convert ticks in to an {@link Instant} for display, and is
+ * captured once so adjusting the system clock doesn't shift any timers.
+ * <p>
+ * The clock is advanced on the client thread but read from any thread, so the last game tick is published as a single
+ * immutable {@link Anchor}.
+ */
+@Singleton
+public class GameClock
+{
+	public static final long TICK_MILLIS = 600;
+	private static final long TICK_NANOS = TICK_MILLIS * 1_000_000;
+	// Number of client ticks between two game ticks that can be trusted, larger gaps fall back to the elapsed time
+	private static final int MAX_TICK_GAP = 5;
+
+	private final LongSupplier nanoTime;
+	private final long startNanos;
+	private final long startEpochMillis;
+
+	private volatile Anchor anchor;
+	// Highest tick returned by now(), estimates are never allowed to go below it
+	private final AtomicLong highestTick = new AtomicLong();
+	// Only used from the client thread
+	private int lastClientTick = -1;
+
+	@Inject
+	public GameClock()
+	{
+		this(System::nanoTime);
+	}
+
+	GameClock(final LongSupplier nanoTime)
+	{
+		this.nanoTime = nanoTime;
+		startNanos = nanoTime.getAsLong();
+		startEpochMillis = System.currentTimeMillis();
+		anchor = new Anchor(0, startNanos);
+	}
+
+	/**
+	 * Advances the clock, should be called at the start of every game tick
+	 */
+	public void onGameTick(final int clientTick)
+	{
+		final long now = nanoTime.getAsLong();
+		final Anchor previous = anchor;
+		final int clientDelta = clientTick - lastClientTick;
+		final long tick;
+		if (lastClientTick >= 0 && clientDelta > 0 && clientDelta <= MAX_TICK_GAP)
+		{
+			tick = previous.tick + clientDelta;
+		}
+		else
+		{
+			// First tick or the client tick count jumped, e.g. after hopping, so use the elapsed time instead
+			tick = Math.max(previous.tick + 1, previous.tick + Math.round((now - previous.nanos) / (double) TICK_NANOS));
+		}
+
+		anchor = new Anchor(tick, now);
+		lastClientTick = clientTick;
+	}
+
+	/**
+	 * @return the current tick, estimated from the last game tick. Never lower than a previously returned tick, as a
+	 * late game tick can anchor the clock below an estimate that was already handed out.
+	 */
+	public long now()
+	{
+		final Anchor current = anchor;
+		final long estimate = current.tick + (nanoTime.getAsLong() - current.nanos) / TICK_NANOS;
+		return highestTick.accumulateAndGet(estimate, Math::max);
+	}
+
+	/**
+	 * Converts the tick in to wall clock time for display purposes
+	 */
+	public Instant toInstant(final long tick)
+	{
+		return Instant.ofEpochMilli(toEpochMillis(tick));
+	}
+
+	/**
+	 * @return the current wall clock time, measured from when the clock was created so it isn't affected by clock adjustments
+	 */
+	public long currentEpochMillis()
+	{
+		return startEpochMillis + (nanoTime.getAsLong() - startNanos) / 1_000_000;
+	}
+
+	public long toEpochMillis(final long tick)
+	{
+		final Anchor current = anchor;
+		final long anchorMillis = startEpochMillis + (current.nanos - startNanos) / 1_000_000;
+		return anchorMillis + (tick - current.tick) * TICK_MILLIS;
+	}
+
+	public static long ticksToMillis(final long ticks)
+	{
+		return ticks * TICK_MILLIS;
+	}
+
+	public static long millisToTicks(final long millis)
+	{
+		return (millis + TICK_MILLIS - 1) / TICK_MILLIS;
+	}
+
+	/**
+	 * Tick and nanoTime of the last game tick
+	 */
+	private static final class Anchor
+	{
+		private final long tick;
+		private final long nanos;
+
+		private Anchor(final long tick, final long nanos)
+		{
+			this.tick = tick;
+			this.nanos = nanos;
+		}
+	}
+}
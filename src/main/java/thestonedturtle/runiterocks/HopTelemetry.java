@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.config.ConfigManager;
+
+/**
+ * Records per world how long hops take and how long until the first rock event arrives after starting a hop.
+ * <p>
+ * Updates come from the client thread while the panel reads the summaries on the EDT.
+ */
+@Slf4j
+@Singleton
+class HopTelemetry
+{
+	static final String CONFIG_KEY = "hopTelemetry";
+	private static final Type SAVED_TYPE = new TypeToken<Map<Integer, SavedWorld>>()
+	{
+	}.getType();
+
+	private final ConfigManager configManager;
+	private final Gson gson;
+
+	private final Map<Integer, LatencyHistogram> hopLatency = new HashMap<>();
+	private final Map<Integer, LatencyHistogram> firstEventLatency = new HashMap<>();
+
+	// nanoTime the current hop was started at, or -1 if there is no hop in progress
+	private long hopStartNanos = -1;
+	// Millis between the hop starting and the first rock event if it arrived before logging in
+	private long pendingFirstEventMillis = -1;
+	// World we logged in to that is still waiting on its first rock event
+	private int awaitingFirstEventWorld = -1;
+	private boolean dirty = false;
+
+	@Inject
+	private HopTelemetry(final ConfigManager configManager, final Gson gson)
+	{
+		this.configManager = configManager;
+		this.gson = gson;
+	}
+
+	/**
+	 * Called when a hop is requested, or the game enters the hopping state for hops made outside of the plugin
+	 */
+	synchronized void onHopStarted()
+	{
+		// A hop that has logged in but is still waiting on a rock event is complete as far as a new hop is concerned
+		if (hopStartNanos >= 0 && awaitingFirstEventWorld < 0)
+		{
+			return;
+		}
+
+		hopStartNanos = System.nanoTime();
+		pendingFirstEventMillis = -1;
+		awaitingFirstEventWorld = -1;
+	}
+
+	synchronized void onLoggedIn(final int world)
+	{
+		if (hopStartNanos < 0)
+		{
+			return;
+		}
+
+		final long now = System.nanoTime();
+		getHistogram(hopLatency, world).record((now - hopStartNanos) / 1_000_000);
+		if (pendingFirstEventMillis >= 0)
+		{
+			getHistogram(firstEventLatency, world).record(pendingFirstEventMillis);
+			hopStartNanos = -1;
+		}
+		else
+		{
+			awaitingFirstEventWorld = world;
+		}
+
+		pendingFirstEventMillis = -1;
+		dirty = true;
+	}
+
+	/**
+	 * Called for every rock event, only the first one after starting a hop is recorded
+	 */
+	synchronized void onRockEvent()
+	{
+		if (hopStartNanos < 0)
+		{
+			return;
+		}
+
+		final long millis = (System.nanoTime() - hopStartNanos) / 1_000_000;
+		if (awaitingFirstEventWorld >= 0)
+		{
+			getHistogram(firstEventLatency, awaitingFirstEventWorld).record(millis);
+			awaitingFirstEventWorld = -1;
+			hopStartNanos = -1;
+			dirty = true;
+		}
+		else if (pendingFirstEventMillis < 0)
+		{
+			pendingFirstEventMillis = millis;
+		}
+	}
+
+	/**
+	 * Stops waiting for a rock event, e.g. when logging out or hopping again
+	 */
+	synchronized void cancel()
+	{
+		hopStartNanos = -1;
+		pendingFirstEventMillis = -1;
+		awaitingFirstEventWorld = -1;
+	}
+
+	/**
+	 * @return the median time, in millis, from starting a hop to receiving rock information for the world or -1 if unknown
+	 */
+	synchronized long getExpectedScoutMillis(final int world)
+	{
+		final LatencyHistogram firstEvent = firstEventLatency.get(world);
+		if (firstEvent != null && firstEvent.size() > 0)
+		{
+			return firstEvent.percentile(0.5);
+		}
+
+		final LatencyHistogram hop = hopLatency.get(world);
+		return hop == null ? -1 : hop.percentile(0.5);
+	}
+
+	/**
+	 * @return a short human readable summary of the worlds latency percentiles
+	 */
+	synchronized String describe(final int world)
+	{
+		final LatencyHistogram hop = hopLatency.get(world);
+		final LatencyHistogram firstEvent = firstEventLatency.get(world);
+		if (hop == null && firstEvent == null)
+		{
+			return "No hop timings recorded";
+		}
+
+		final StringBuilder builder = new StringBuilder("<html>");
+		if (hop != null)
+		{
+			builder.append("Hop: p50 ").append(formatMillis(hop.percentile(0.5)))
+				.append(" / p95 ").append(formatMillis(hop.percentile(0.95)))
+				.append(" (").append(hop.size()).append(")");
+		}
+		if (firstEvent != null)
+		{
+			if (hop != null)
+			{
+				builder.append("<br/>");
+			}
+			builder.append("First rock: p50 ").append(formatMillis(firstEvent.percentile(0.5)))
+				.append(" / p95 ").append(formatMillis(firstEvent.percentile(0.95)))
+				.append(" (").append(firstEvent.size()).append(")");
+		}
+
+		return builder.append("</html>").toString();
+	}
+
+	synchronized void load()
+	{
+		hopLatency.clear();
+		firstEventLatency.clear();
+
+		final String json = configManager.getConfiguration(RuniteRocksConfig.GROUP, CONFIG_KEY);
+		if (json == null || json.isEmpty())
+		{
+			return;
+		}
+
+		final Map<Integer, SavedWorld> saved;
+		try
+		{
+			saved = gson.fromJson(json, SAVED_TYPE);
+		}
+		catch (JsonSyntaxException e)
+		{
+			log.warn("Unable to parse saved hop telemetry", e);
+			return;
+		}
+
+		if (saved == null)
+		{
+			return;
+		}
+
+		for (final Map.Entry<Integer, SavedWorld> entry : saved.entrySet())
+		{
+			if (entry.getValue().hop != null)
+			{
+				hopLatency.put(entry.getKey(), LatencyHistogram.fromSamples(entry.getValue().hop));
+			}
+			if (entry.getValue().firstRock != null)
+			{
+				firstEventLatency.put(entry.getKey(), LatencyHistogram.fromSamples(entry.getValue().firstRock));
+			}
+		}
+	}
+
+	/**
+	 * Persists the histograms if any new samples have been recorded since the last save
+	 */
+	synchronized void save()
+	{
+		if (!dirty)
+		{
+			return;
+		}
+
+		final Map<Integer, SavedWorld> saved = new HashMap<>();
+		for (final Map.Entry<Integer, LatencyHistogram> entry : hopLatency.entrySet())
+		{
+			saved.computeIfAbsent(entry.getKey(), k -> new SavedWorld()).hop = entry.getValue().toSamples();
+		}
+		for (final Map.Entry<Integer, LatencyHistogram> entry : firstEventLatency.entrySet())
+		{
+			saved.computeIfAbsent(entry.getKey(), k -> new SavedWorld()).firstRock = entry.getValue().toSamples();
+		}
+
+		configManager.setConfiguration(RuniteRocksConfig.GROUP, CONFIG_KEY, gson.toJson(saved, SAVED_TYPE));
+		dirty = false;
+	}
+
+	private static LatencyHistogram getHistogram(final Map<Integer, LatencyHistogram> map, final int world)
+	{
+		return map.computeIfAbsent(world, k -> new LatencyHistogram());
+	}
+
+	private static String formatMillis(final long millis)
+	{
+		return String.format("%.1fs", millis / 1000.0);
+	}
+
+	private static class SavedWorld
+	{
+		private byte[] hop;
+		private byte[] firstRock;
+	}
+}
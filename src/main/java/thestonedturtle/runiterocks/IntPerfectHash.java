@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Arrays;
+
+/**
+ * Collision free hash table from distinct int keys to their index in the array the table was built from.
+ * <p>
+ * Built with the hash-and-displace method: keys are split in to small buckets and each bucket searches for a seed
+ * that places all of its keys in empty slots. A lookup is two hashes and a single comparison, with no boxing or
+ * allocation, and building stays fast for thousands of keys.
+ */
+final class IntPerfectHash
+{
+	private static final int KEYS_PER_BUCKET = 4;
+	private static final int MAX_SEED = 1 << 16;
+	private static final int SEED_MIX = 0x9E3779B9;
+
+	private final int[] bucketSeeds;
+	private final int[] slotKeys;
+	private final int[] slotValues;
+	private final int bucketMask;
+	private final int slotMask;
+
+	private IntPerfectHash(final int[] bucketSeeds, final int[] slotKeys, final int[] slotValues)
+	{
+		this.bucketSeeds = bucketSeeds;
+		this.slotKeys = slotKeys;
+		this.slotValues = slotValues;
+		this.bucketMask = bucketSeeds.length - 1;
+		this.slotMask = slotKeys.length - 1;
+	}
+
+	/**
+	 * @param keys distinct keys, the value for each key is its index in this array
+	 * @throws IllegalArgumentException if the keys are not distinct
+	 */
+	static IntPerfectHash build(final int[] keys)
+	{
+		final int bucketCount = nextPowerOfTwo(keys.length / KEYS_PER_BUCKET + 1);
+		final int slotCount = nextPowerOfTwo(keys.length * 2 + 1);
+
+		// Group the key indexes by bucket
+		final int[] bucketSizes = new int[bucketCount];
+		for (final int key : keys)
+		{
+			bucketSizes[mix(key) & (bucketCount - 1)]++;
+		}
+		final int[][] buckets = new int[bucketCount][];
+		for (int b = 0; b < bucketCount; b++)
+		{
+			buckets[b] = new int[bucketSizes[b]];
+			bucketSizes[b] = 0;
+		}
+		for (int i = 0; i < keys.length; i++)
+		{
+			final int b = mix(keys[i]) & (bucketCount - 1);
+			buckets[b][bucketSizes[b]++] = i;
+		}
+
+		// Place the largest buckets first while the table is emptiest
+		final Integer[] order = new Integer[bucketCount];
+		for (int b = 0; b < bucketCount; b++)
+		{
+			order[b] = b;
+		}
+		Arrays.sort(order, (a, b) -> Integer.compare(buckets[b].length, buckets[a].length));
+
+		final int[] bucketSeeds = new int[bucketCount];
+		final int[] slotKeys = new int[slotCount];
+		final int[] slotValues = new int[slotCount];
+		Arrays.fill(slotValues, -1);
+
+		final int[] placed = new int[KEYS_PER_BUCKET * 4];
+		for (final int b : order)
+		{
+			final int[] bucket = buckets[b];
+			if (bucket.length == 0)
+			{
+				continue;
+			}
+
+			boolean found = false;
+			for (int seed = 0; seed < MAX_SEED && !found; seed++)
+			{
+				found = place(keys, bucket, seed, slotKeys, slotValues, slotCount - 1, placed);
+				if (found)
+				{
+					bucketSeeds[b] = seed;
+				}
+			}
+
+			if (!found)
+			{
+				throw new IllegalArgumentException("Unable to build a perfect hash, keys are not distinct");
+			}
+		}
+
+		return new IntPerfectHash(bucketSeeds, slotKeys, slotValues);
+	}
+
+	/**
+	 * @return the index of the key in the array the table was built from, or -1 if it isn't present
+	 */
+	int get(final int key)
+	{
+		final int seed = bucketSeeds[mix(key) & bucketMask];
+		final int slot = slot(key, seed) & slotMask;
+		final int value = slotValues[slot];
+		return value != -1 && slotKeys[slot] == key ? value : -1;
+	}
+
+	private static boolean place(final int[] keys, final int[] bucket, final int seed, final int[] slotKeys, final int[] slotValues,
+		final int slotMask, int[] placed)
+	{
+		if (placed.length < bucket.length)
+		{
+			placed = new int[bucket.length];
+		}
+
+		int count = 0;
+		for (final int index : bucket)
+		{
+			final int slot = slot(keys[index], seed) & slotMask;
+			if (slotValues[slot] != -1)
+			{
+				// Undo the slots taken by this bucket so the next seed starts from a clean table
+				for (int i = 0; i < count; i++)
+				{
+					slotValues[placed[i]] = -1;
+				}
+				return false;
+			}
+
+			slotKeys[slot] = keys[index];
+			slotValues[slot] = index;
+			placed[count++] = slot;
+		}
+
+		return true;
+	}
+
+	private static int slot(final int key, final int seed)
+	{
+		return mix(key ^ (seed * SEED_MIX));
+	}
+
+	/**
+	 * Murmur3 finalizer, spreads every input bit across the whole hash
+	 */
+	private static int mix(int h)
+	{
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		h ^= h >>> 13;
+		h *= 0xC2B2AE35;
+		h ^= h >>> 16;
+		return h;
+	}
+
+	private static int nextPowerOfTwo(final int value)
+	{
+		return value <= 1 ? 1 : Integer.highestOneBit(value - 1) << 1;
+	}
+}
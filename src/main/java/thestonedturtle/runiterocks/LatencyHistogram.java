@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+/**
+ * Rolling histogram of the last {@link #WINDOW} latency samples.
+ * <p>
+ * Samples are stored as a bucket index in a ring so memory stays fixed regardless of how many samples are recorded.
+ * Buckets grow exponentially from {@link #FIRST_BUCKET_MILLIS} so percentiles are accurate to within one bucket (~25%).
+ */
+class LatencyHistogram
+{
+	static final int WINDOW = 64;
+	private static final int BUCKETS = 32;
+	private static final long FIRST_BUCKET_MILLIS = 50;
+	private static final double BUCKET_GROWTH = 1.25;
+	private static final long[] BUCKET_UPPER_BOUNDS = new long[BUCKETS];
+
+	static
+	{
+		double bound = FIRST_BUCKET_MILLIS;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			BUCKET_UPPER_BOUNDS[i] = Math.round(bound);
+			bound *= BUCKET_GROWTH;
+		}
+	}
+
+	private final byte[] samples = new byte[WINDOW];
+	private final int[] counts = new int[BUCKETS];
+	private int head = 0;
+	private int size = 0;
+
+	void record(final long millis)
+	{
+		final int bucket = bucketOf(millis);
+		if (size == WINDOW)
+		{
+			counts[samples[head]]--;
+		}
+		else
+		{
+			size++;
+		}
+
+		samples[head] = (byte) bucket;
+		counts[bucket]++;
+		head = (head + 1) % WINDOW;
+	}
+
+	int size()
+	{
+		return size;
+	}
+
+	/**
+	 * @param percentile between 0 and 1
+	 * @return the upper bound, in millis, of the bucket containing the percentile or -1 if there are no samples
+	 */
+	long percentile(final double percentile)
+	{
+		if (size == 0)
+		{
+			return -1;
+		}
+
+		final int target = Math.max(1, (int) Math.ceil(size * percentile));
+		int seen = 0;
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			seen += counts[i];
+			if (seen >= target)
+			{
+				return BUCKET_UPPER_BOUNDS[i];
+			}
+		}
+
+		return BUCKET_UPPER_BOUNDS[BUCKETS - 1];
+	}
+
+	/**
+	 * @return the bucket indexes of the samples, oldest first
+	 */
+	byte[] toSamples()
+	{
+		final byte[] ordered = new byte[size];
+		final int start = size == WINDOW ? head : 0;
+		for (int i = 0; i < size; i++)
+		{
+			ordered[i] = samples[(start + i) % WINDOW];
+		}
+
+		return ordered;
+	}
+
+	static LatencyHistogram fromSamples(final byte[] buckets)
+	{
+		final LatencyHistogram histogram = new LatencyHistogram();
+		if (buckets == null)
+		{
+			return histogram;
+		}
+
+		for (final byte bucket : buckets)
+		{
+			if (bucket < 0 || bucket >= BUCKETS)
+			{
+				continue;
+			}
+
+			histogram.record(BUCKET_UPPER_BOUNDS[bucket]);
+		}
+
+		return histogram;
+	}
+
+	private static int bucketOf(final long millis)
+	{
+		for (int i = 0; i < BUCKETS; i++)
+		{
+			if (millis <= BUCKET_UPPER_BOUNDS[i])
+			{
+				return i;
+			}
+		}
+
+		return BUCKETS - 1;
+	}
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import lombok.Getter;
+
+/**
+ * Summary of every tracked rock at a location, kept up to date one rock at a time.
+ * <p>
+ * The available and depleted rocks are kept in sorted sets of immutable entries, so an update only removes the rocks
+ * previous entry and inserts its new one instead of scanning every rock at the location.
+ */
+public class LocationAggregate
+{
+	// Most recently seen first
+	private static final Comparator<Entry> AVAILABLE_ORDER = Comparator.comparingLong((Entry e) -> -e.tick).thenComparingLong(e -> e.key);
+	// Soonest respawn first
+	private static final Comparator<Entry> DEPLETED_ORDER = Comparator.comparingLong((Entry e) -> e.tick).thenComparingLong(e -> e.key);
+
+	@Getter
+	private final String location;
+	private final Map<Long, Entry> entries = new HashMap<>();
+	private final Map<Long, RuniteRock> rocks = new HashMap<>();
+	private final TreeSet<Entry> available = new TreeSet<>(AVAILABLE_ORDER);
+	private final TreeSet<Entry> depleted = new TreeSet<>(DEPLETED_ORDER);
+
+	public LocationAggregate(final String location)
+	{
+		this.location = location;
+	}
+
+	public void update(final RuniteRock rock)
+	{
+		final long key = key(rock.getWorld().getId(), rock.getRock());
+		remove(key);
+
+		final Entry entry = rock.isAvailable()
+			? new Entry(key, rock.getWorld().getId(), rock.getLastSeenTick(), true)
+			: new Entry(key, rock.getWorld().getId(), rock.getRespawnTick(), false);
+		entries.put(key, entry);
+		rocks.put(key, rock);
+		(entry.available ? available : depleted).add(entry);
+	}
+
+	public void remove(final int world, final Rock rock)
+	{
+		remove(key(world, rock));
+	}
+
+	public void clear()
+	{
+		entries.clear();
+		rocks.clear();
+		available.clear();
+		depleted.clear();
+	}
+
+	public boolean isEmpty()
+	{
+		return entries.isEmpty();
+	}
+
+	public int getAvailableCount()
+	{
+		return available.size();
+	}
+
+	/**
+	 * @return the soonest respawn tick of the depleted rocks, {@link Long#MAX_VALUE} if none are depleted
+	 */
+	public long getNextRespawnTick()
+	{
+		return depleted.isEmpty() ? Long.MAX_VALUE : depleted.first().tick;
+	}
+
+	/**
+	 * @return the world of the most recently seen available rock, or the soonest respawn if none are available.
+	 * -1 if there are no rocks
+	 */
+	public int getBestWorld()
+	{
+		if (!available.isEmpty())
+		{
+			return available.first().world;
+		}
+
+		return depleted.isEmpty() ? -1 : depleted.first().world;
+	}
+
+	public Collection<RuniteRock> getRocks()
+	{
+		return rocks.values();
+	}
+
+	private void remove(final long key)
+	{
+		final Entry previous = entries.remove(key);
+		if (previous != null)
+		{
+			(previous.available ? available : depleted).remove(previous);
+			rocks.remove(key);
+		}
+	}
+
+	private static long key(final int world, final Rock rock)
+	{
+		return ((long) world << 32) | rock.getId();
+	}
+
+	private static class Entry
+	{
+		private final long key;
+		private final int world;
+		// Last seen tick when available, respawn tick when depleted
+		private final long tick;
+		private final boolean available;
+
+		private Entry(final long key, final int world, final long tick, final boolean available)
+		{
+			this.key = key;
+			this.world = world;
+			this.tick = tick;
+			this.available = available;
+		}
+	}
+}
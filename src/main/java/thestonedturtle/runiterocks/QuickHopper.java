@@ -0,0 +1,277 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Deque;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.widgets.ComponentID;
+import net.runelite.client.chat.ChatColorType;
+import net.runelite.client.chat.ChatMessageBuilder;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.chat.QueuedMessage;
+import net.runelite.client.util.WorldUtil;
+import net.runelite.http.api.worlds.World;
+
+/**
+ * Hops through a queue of target worlds, one at a time.
+ * <p>
+ * Worlds may be queued from any thread but are only processed on the client thread via {@link #onGameTick()}.
+ * The world switcher is opened as soon as a target is queued, or ahead of time via {@link #prepare()},
+ * so the hop itself can happen on the same tick the world switcher is available.
+ */
+@Slf4j
+@Singleton
+class QuickHopper
+{
+	private static final int DISPLAY_SWITCHER_MAX_ATTEMPTS = 3;
+	private static final int MAX_BLOCKED_RETRIES = 5;
+	private static final int MAX_BACKOFF_TICKS = 8;
+	// Ticks to wait for the hop to start before assuming it was dropped
+	private static final int HOP_TIMEOUT_TICKS = 5;
+
+	private final Client client;
+	private final ChatMessageManager chatMessageManager;
+	private final HopTelemetry hopTelemetry;
+
+	private final Deque<World> targets = new ConcurrentLinkedDeque<>();
+
+	// Only written on the client thread, read from the EDT to show which worlds are queued
+	private volatile net.runelite.api.World target;
+	private int displaySwitcherAttempts = 0;
+	private int blockedRetries = 0;
+	private int backoffTicks = 0;
+	private int nextAttemptTick = 0;
+	private int hopSentTick = -1;
+
+	@Inject
+	private QuickHopper(final Client client, final ChatMessageManager chatMessageManager, final HopTelemetry hopTelemetry)
+	{
+		this.client = client;
+		this.chatMessageManager = chatMessageManager;
+		this.hopTelemetry = hopTelemetry;
+	}
+
+	/**
+	 * Adds the world to the end of the hop queue if it isn't already queued
+	 */
+	void queue(final World world)
+	{
+		if (isQueued(world.getId()))
+		{
+			return;
+		}
+
+		targets.add(world);
+	}
+
+	boolean isQueued(final int worldId)
+	{
+		final net.runelite.api.World current = target;
+		if (current != null && current.getId() == worldId)
+		{
+			return true;
+		}
+
+		for (final World world : targets)
+		{
+			if (world.getId() == worldId)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	boolean isIdle()
+	{
+		return target == null && targets.isEmpty();
+	}
+
+	/**
+	 * Opens the world switcher ahead of a hop being queued so it doesn't cost a tick once it is
+	 */
+	void prepare()
+	{
+		if (client.getGameState() == GameState.LOGGED_IN && client.getWidget(ComponentID.WORLD_SWITCHER_WORLD_LIST) == null)
+		{
+			client.openWorldHopper();
+		}
+	}
+
+	void onGameTick()
+	{
+		if (target == null)
+		{
+			final World next = targets.poll();
+			if (next == null)
+			{
+				return;
+			}
+
+			if (next.getId() == client.getWorld())
+			{
+				return;
+			}
+
+			start(next);
+		}
+
+		if (hopSentTick >= 0)
+		{
+			if (client.getTickCount() - hopSentTick > HOP_TIMEOUT_TICKS)
+			{
+				log.debug("Hop to world {} never started", target.getId());
+				hopTelemetry.cancel();
+				reset();
+			}
+			return;
+		}
+
+		if (client.getTickCount() < nextAttemptTick)
+		{
+			return;
+		}
+
+		if (client.getWidget(ComponentID.WORLD_SWITCHER_WORLD_LIST) == null)
+		{
+			client.openWorldHopper();
+
+			if (++displaySwitcherAttempts >= DISPLAY_SWITCHER_MAX_ATTEMPTS)
+			{
+				fail("Failed to hop after ", Integer.toString(displaySwitcherAttempts), " attempts.");
+			}
+			return;
+		}
+
+		client.hopToWorld(target);
+		hopSentTick = client.getTickCount();
+	}
+
+	/**
+	 * Called when the game refuses to open the world switcher, the hop is retried with an exponential backoff
+	 */
+	void onHopBlocked()
+	{
+		if (target == null)
+		{
+			return;
+		}
+
+		if (++blockedRetries > MAX_BLOCKED_RETRIES)
+		{
+			fail("Failed to hop after ", Integer.toString(MAX_BLOCKED_RETRIES), " retries.");
+			return;
+		}
+
+		backoffTicks = Math.min(MAX_BACKOFF_TICKS, Math.max(1, backoffTicks * 2));
+		nextAttemptTick = client.getTickCount() + backoffTicks;
+		displaySwitcherAttempts = 0;
+		hopSentTick = -1;
+	}
+
+	/**
+	 * Called once logged in to a world, completes the current hop if it was to the target world
+	 */
+	void onLoggedIn(final int world)
+	{
+		if (target != null && target.getId() == world)
+		{
+			reset();
+		}
+	}
+
+	void clear()
+	{
+		targets.clear();
+		reset();
+	}
+
+	private void start(final World world)
+	{
+		target = toRsWorld(world);
+		hopTelemetry.onHopStarted();
+		client.changeWorld(target);
+		displaySwitcherAttempts = 0;
+		blockedRetries = 0;
+		backoffTicks = 0;
+		nextAttemptTick = 0;
+		hopSentTick = -1;
+
+		// Opening the world switcher now saves a tick compared to waiting for the next attempt
+		prepare();
+	}
+
+	private void fail(final String prefix, final String highlight, final String suffix)
+	{
+		final String chatMessage = new ChatMessageBuilder()
+			.append(ChatColorType.NORMAL)
+			.append(prefix)
+			.append(ChatColorType.HIGHLIGHT)
+			.append(highlight)
+			.append(ChatColorType.NORMAL)
+			.append(suffix)
+			.build();
+
+		chatMessageManager
+			.queue(QueuedMessage.builder()
+				.type(ChatMessageType.CONSOLE)
+				.runeLiteFormattedMessage(chatMessage)
+				.build());
+
+		log.debug("Hop to world {} failed", target.getId());
+		hopTelemetry.cancel();
+		reset();
+	}
+
+	private void reset()
+	{
+		target = null;
+		displaySwitcherAttempts = 0;
+		blockedRetries = 0;
+		backoffTicks = 0;
+		nextAttemptTick = 0;
+		hopSentTick = -1;
+	}
+
+	private net.runelite.api.World toRsWorld(final World world)
+	{
+		final net.runelite.api.World rsWorld = client.createWorld();
+		rsWorld.setActivity(world.getActivity());
+		rsWorld.setAddress(world.getAddress());
+		rsWorld.setId(world.getId());
+		rsWorld.setPlayerCount(world.getPlayers());
+		rsWorld.setLocation(world.getLocation());
+		rsWorld.setTypes(WorldUtil.toWorldTypes(world.getTypes()));
+
+		return rsWorld;
+	}
+}
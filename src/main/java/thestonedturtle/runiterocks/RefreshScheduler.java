@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import javax.swing.SwingUtilities;
+
+/**
+ * Schedules the panel refreshes that only exist to update the ticking counters.
+ * <p>
+ * Nothing is scheduled while the panel is closed or we aren't logged in. Otherwise a refresh is scheduled just after
+ * the next period boundary, and after each refresh another one is only scheduled if something on the panel still
+ * depends on the time. Once nothing does the scheduler sleeps until {@link #wake()} is called for a state change.
+ */
+class RefreshScheduler
+{
+	// Wake slightly after the boundary so the counters have already rolled over
+	private static final long BOUNDARY_SLACK_MILLIS = 5;
+
+	private final ScheduledExecutorService executor;
+	private final long periodMillis;
+	// Run on the EDT
+	private final Runnable refresh;
+	// Checked on the EDT after each refresh
+	private final BooleanSupplier timeDependent;
+
+	private ScheduledFuture<?> future;
+	private boolean visible = false;
+	private boolean loggedIn = false;
+
+	RefreshScheduler(final ScheduledExecutorService executor, final Runnable refresh, final BooleanSupplier timeDependent)
+	{
+		this(executor, 1000, refresh, timeDependent);
+	}
+
+	RefreshScheduler(final ScheduledExecutorService executor, final long periodMillis, final Runnable refresh, final BooleanSupplier timeDependent)
+	{
+		this.executor = executor;
+		this.periodMillis = periodMillis;
+		this.refresh = refresh;
+		this.timeDependent = timeDependent;
+	}
+
+	synchronized void setVisible(final boolean visible)
+	{
+		this.visible = visible;
+		reschedule();
+	}
+
+	synchronized void setLoggedIn(final boolean loggedIn)
+	{
+		this.loggedIn = loggedIn;
+		reschedule();
+	}
+
+	/**
+	 * Called when something shown on the panel changes, starts the refreshes again if they were sleeping
+	 */
+	synchronized void wake()
+	{
+		if (future == null)
+		{
+			reschedule();
+		}
+	}
+
+	synchronized void stop()
+	{
+		visible = false;
+		cancel();
+	}
+
+	private void reschedule()
+	{
+		cancel();
+		if (!visible || !loggedIn)
+		{
+			return;
+		}
+
+		final long delay = periodMillis - System.currentTimeMillis() % periodMillis + BOUNDARY_SLACK_MILLIS;
+		future = executor.schedule(() -> SwingUtilities.invokeLater(this::run), delay, TimeUnit.MILLISECONDS);
+	}
+
+	private void run()
+	{
+		synchronized (this)
+		{
+			future = null;
+			if (!visible || !loggedIn)
+			{
+				return;
+			}
+		}
+
+		refresh.run();
+		if (timeDependent.getAsBoolean())
+		{
+			synchronized (this)
+			{
+				if (future == null)
+				{
+					reschedule();
+				}
+			}
+		}
+	}
+
+	private void cancel()
+	{
+		if (future != null)
+		{
+			future.cancel(false);
+			future = null;
+		}
+	}
+}
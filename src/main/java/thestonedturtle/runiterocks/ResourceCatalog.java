@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Every resource node that can be tracked, loaded from the bundled rocks.csv.
+ * <p>
+ * The catalog is compiled in to perfect hash tables keyed by the packed location and by region id so
+ * looking up a rock stays O(1), without boxing or allocation, however many rocks are added to the data file.
+ */
+public final class ResourceCatalog
+{
+	private static final String RESOURCE = "rocks.csv";
+	private static final int COLUMNS = 9;
+	private static final Rock[] NO_ROCKS = new Rock[0];
+
+	private final List<Rock> rocks;
+	private final IntPerfectHash locationIndex;
+	private final IntPerfectHash regionIndex;
+	private final Rock[][] regionRocks;
+	private final Map<String, Rock> keyIndex = new HashMap<>();
+
+	private ResourceCatalog(final List<Rock> rocks)
+	{
+		this.rocks = Collections.unmodifiableList(rocks);
+
+		final int[] locations = new int[rocks.size()];
+		final Map<Integer, List<Rock>> regions = new LinkedHashMap<>();
+		for (int i = 0; i < rocks.size(); i++)
+		{
+			final WorldPoint point = rocks.get(i).getWorldPoint();
+			locations[i] = packLocation(point.getX(), point.getY(), point.getPlane());
+			regions.computeIfAbsent(point.getRegionID(), k -> new ArrayList<>()).add(rocks.get(i));
+			keyIndex.put(rocks.get(i).getKey(), rocks.get(i));
+		}
+		locationIndex = IntPerfectHash.build(locations);
+
+		final int[] regionIds = new int[regions.size()];
+		regionRocks = new Rock[regions.size()][];
+		int idx = 0;
+		for (final Map.Entry<Integer, List<Rock>> entry : regions.entrySet())
+		{
+			regionIds[idx] = entry.getKey();
+			regionRocks[idx] = entry.getValue().toArray(NO_ROCKS);
+			idx++;
+		}
+		regionIndex = IntPerfectHash.build(regionIds);
+	}
+
+	public static ResourceCatalog getInstance()
+	{
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Parses a catalog in the rocks.csv format. Blank lines and lines starting with # are ignored.
+	 *
+	 * @throws IOException if the data can't be read or a line is malformed
+	 */
+	static ResourceCatalog load(final Reader reader) throws IOException
+	{
+		final List<Rock> rocks = new ArrayList<>();
+		final BufferedReader lines = new BufferedReader(reader);
+		String line;
+		int lineNumber = 0;
+		while ((line = lines.readLine()) != null)
+		{
+			lineNumber++;
+			line = line.trim();
+			if (line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+
+			final String[] parts = line.split(",");
+			if (parts.length != COLUMNS)
+			{
+				throw new IOException("Expected " + COLUMNS + " columns on line " + lineNumber + " but found " + parts.length);
+			}
+
+			try
+			{
+				rocks.add(new Rock(
+					rocks.size(),
+					parts[0],
+					parts[1],
+					parts[2],
+					new WorldPoint(Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5])),
+					Integer.parseInt(parts[6]),
+					Integer.parseInt(parts[7]),
+					Duration.ofSeconds(Integer.parseInt(parts[8]))));
+			}
+			catch (NumberFormatException e)
+			{
+				throw new IOException("Invalid number on line " + lineNumber, e);
+			}
+		}
+
+		try
+		{
+			return new ResourceCatalog(rocks);
+		}
+		catch (IllegalArgumentException e)
+		{
+			throw new IOException("Catalog contains two rocks at the same location", e);
+		}
+	}
+
+	public List<Rock> getRocks()
+	{
+		return rocks;
+	}
+
+	public int size()
+	{
+		return rocks.size();
+	}
+
+	@Nullable
+	public Rock getByWorldPoint(final WorldPoint point)
+	{
+		return getByLocation(point.getX(), point.getY(), point.getPlane());
+	}
+
+	@Nullable
+	public Rock getByLocation(final int x, final int y, final int plane)
+	{
+		final int idx = locationIndex.get(packLocation(x, y, plane));
+		return idx == -1 ? null : rocks.get(idx);
+	}
+
+	/**
+	 * @param key the rocks key, as saved by stores that need to survive changes to the catalog order
+	 */
+	@Nullable
+	public Rock getByKey(final String key)
+	{
+		return keyIndex.get(key);
+	}
+
+	/**
+	 * @param packedLocation location packed by {@link #packLocation(int, int, int)}
+	 */
+	@Nullable
+	public Rock getByPackedLocation(final int packedLocation)
+	{
+		final int idx = locationIndex.get(packedLocation);
+		return idx == -1 ? null : rocks.get(idx);
+	}
+
+	/**
+	 * @return the rocks inside the region, the returned array must not be modified
+	 */
+	public Rock[] getByRegion(final int regionId)
+	{
+		final int idx = regionIndex.get(regionId);
+		return idx == -1 ? NO_ROCKS : regionRocks[idx];
+	}
+
+	static int packLocation(final int x, final int y, final int plane)
+	{
+		return (plane << 28) | ((x & 0x3FFF) << 14) | (y & 0x3FFF);
+	}
+
+	private static class Holder
+	{
+		private static final ResourceCatalog INSTANCE = loadBundled();
+
+		private static ResourceCatalog loadBundled()
+		{
+			try (InputStream in = ResourceCatalog.class.getResourceAsStream(RESOURCE))
+			{
+				if (in == null)
+				{
+					throw new IllegalStateException("Missing resource " + RESOURCE);
+				}
+
+				return load(new InputStreamReader(in, StandardCharsets.UTF_8));
+			}
+			catch (IOException e)
+			{
+				throw new IllegalStateException("Unable to load " + RESOURCE, e);
+			}
+		}
+	}
+}
@@ -24,104 +24,51 @@
  */
 package thestonedturtle.runiterocks;
 
-import com.google.common.collect.ImmutableMap;
 import java.time.Duration;
 import javax.annotation.Nullable;
 import lombok.AccessLevel;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import net.runelite.api.ObjectID;
 import net.runelite.api.coords.WorldPoint;
 
-@RequiredArgsConstructor
-@AllArgsConstructor
+/**
+ * A single resource node from the {@link ResourceCatalog}. Instances are only created by the catalog, so rocks can
+ * be compared by identity.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
 @Getter
-public enum Rock
+public final class Rock implements Comparable<Rock>
 {
-	LAVA_MINE_1("LM1", "Lava Maze Mine (46 wildy)", new WorldPoint(3059, 3885, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	LAVA_MINE_2("LM2", "Lava Maze Mine (46 wildy)", new WorldPoint(3060, 3884, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-
-	MINING_GUILD_1("MG1", "Mining Guild", new WorldPoint(3056, 9721, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390, 0.5),
-	MINING_GUILD_2("MG2", "Mining Guild", new WorldPoint(3054, 9725, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391, 0.5),
-
-	// Outside llyeta
-	ISAFDAR_1("ELF1", "Isafdar (Outside Llyeta)", new WorldPoint(2280, 3160, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	ISAFDAR_2("ELF2", "Isafdar (Outside Llyeta)", new WorldPoint(2278, 3156, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-
-	HEROES_GUILD_1("HG1", "Heroe's Guild", new WorldPoint(2941, 9884, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	HEROES_GUILD_2("HG2", "Heroe's Guild", new WorldPoint(2937, 9882, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-
-	FROZEN_WASTE_PLATEAU_1("FWP1", "Frozen Waste Plateau (50+ wildy)", new WorldPoint(2948, 3914, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	FROZEN_WASTE_PLATEAU_2("FWP2", "Frozen Waste Plateau (50+ wildy)", new WorldPoint(2964, 3933, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	FROZEN_WASTE_PLATEAU_3("FWP3", "Frozen Waste Plateau (50+ wildy)", new WorldPoint(2976, 3937, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-
-	LAVA_MAZE_DUNGEON("LMD", "Lava Maze Dungeon", new WorldPoint(3046, 10265, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-
-	FOSSIL_ISLAND_1("FI1", "Fossil Island", new WorldPoint(3781, 3817, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	FOSSIL_ISLAND_2("FI2", "Fossil Island", new WorldPoint(3779, 3814, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-
-	CENTRAL_FREMENNIK_ISLES("CFI", "Central Fremennik isles (NE Neitiznot)", new WorldPoint(2375, 3850, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-
-	// Dark Beasts
-	MOURNER_TUNNELS("MT", "Mourner Tunnels", new WorldPoint(1993, 4664, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-
-	MYTHS_GUILD_1("MYTH1", "Myths' Guild", new WorldPoint(1937, 9020, 1), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	MYTHS_GUILD_2("MYTH2", "Myths' Guild", new WorldPoint(1939, 9019, 1), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-
-	// Tzhaar city (reqs firecape)
-	SOUTH_MOR_UI_REK_1("MUR1", "South Mor UI Rek (Tzhaar city)", new WorldPoint(2501, 5066, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	SOUTH_MOR_UI_REK_2("MUR2", "South Mor UI Rek (Tzhaar city)", new WorldPoint(2498, 5065, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	SOUTH_MOR_UI_REK_3("MUR3", "South Mor UI Rek (Tzhaar city)", new WorldPoint(2504, 5059, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-
-	// Prifddinas mining area
-	TRAHAEARN_1("PRIF1", "Trahaearn (Prifddinas mine)", new WorldPoint(3284, 12459, 0), ObjectID.RUNITE_ROCKS_36209, ObjectID.ROCKS_36202),
-	TRAHAEARN_2("PRIF2", "Trahaearn (Prifddinas mine)", new WorldPoint(3287, 12455, 0), ObjectID.RUNITE_ROCKS_36209, ObjectID.ROCKS_36202),
-	TRAHAEARN_3("PRIF3", "Trahaearn (Prifddinas mine)", new WorldPoint(3291, 12441, 0), ObjectID.RUNITE_ROCKS_36209, ObjectID.ROCKS_36202),
-	TRAHAEARN_4("PRIF4", "Trahaearn (Prifddinas mine)", new WorldPoint(3301, 12438, 0), ObjectID.RUNITE_ROCKS_36209, ObjectID.ROCKS_36202),
-
-	ISLE_OF_SOULS("IOSD", "Isles of Souls Dungeon", new WorldPoint(2152, 9301, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-	
-	RUINS_OF_TAPOYAUIK_1("TAPO1", "Ruins of Tapoyauik", new WorldPoint(1581, 9659, 0), ObjectID.RUNITE_ROCKS_11377, ObjectID.ROCKS_11391),
-	RUINS_OF_TAPOYAUIK_2("TAPO2", "Ruins of Tapoyauik", new WorldPoint(1582, 9660, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-
-	THE_STRANGLEWOOD_MINE("SWM", "The Stranglewood mine", new WorldPoint(1168, 3326, 0), ObjectID.RUNITE_ROCKS, ObjectID.ROCKS_11390),
-
-	;
-
-	public static final Duration RESPAWN_TIME = Duration.ofMinutes(12);
-	private static final ImmutableMap<WorldPoint, Rock> ROCK_LOCATIONS;
-	static
-	{
-		final ImmutableMap.Builder<WorldPoint, Rock> set = ImmutableMap.builder();
-		for (Rock rock : values())
-		{
-			set.put(rock.getWorldPoint(), rock);
-		}
-		ROCK_LOCATIONS = set.build();
-	}
-
+	// Index of the rock inside the catalog
+	private final int id;
+	private final String key;
 	private final String name;
 	private final String location;
 	private final WorldPoint worldPoint;
 	private final int activateState;
 	private final int depletedState;
-	@Getter(AccessLevel.NONE)
-	private double respawnRate = 1.0;
+	private final Duration respawnDuration;
+
+	public long getRespawnTicks()
+	{
+		return GameClock.millisToTicks(respawnDuration.toMillis());
+	}
 
-	public Duration getRespawnDuration()
+	@Override
+	public int compareTo(final Rock other)
 	{
-		if (respawnRate == 1.0)
-		{
-			return RESPAWN_TIME;
-		}
+		return Integer.compare(id, other.id);
+	}
 
-		return Duration.ofMillis(Math.round(RESPAWN_TIME.toMillis() * respawnRate));
+	@Override
+	public String toString()
+	{
+		return key;
 	}
 
 	@Nullable
 	public static Rock getByWorldPoint(WorldPoint point)
 	{
-		return ROCK_LOCATIONS.get(point);
+		return ResourceCatalog.getInstance().getByWorldPoint(point);
 	}
 }
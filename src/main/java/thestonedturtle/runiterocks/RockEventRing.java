@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Preallocated single-producer single-consumer ring buffer of rock events stored as primitives.
+ * <p>
+ * Each event is a packed key (world and tile), an object id and the tick it was received at. Publishing an event is
+ * three array stores and an ordered write, so the event handlers don't allocate or keep references to game objects.
+ * The consumer drains events in batches where only the latest event for each key is delivered.
+ */
+class RockEventRing
+{
+	/**
+	 * Receives the events of a drain. Returning false consumes the current event but stops the drain,
+	 * leaving the remaining events queued for the next drain.
+	 */
+	interface Consumer
+	{
+		boolean accept(long key, int objectId, long tick);
+	}
+
+	private final int mask;
+	private final long[] keys;
+	private final int[] objectIds;
+	private final long[] ticks;
+
+	// Next sequence to be written by the producer and read by the consumer
+	private final AtomicLong head = new AtomicLong();
+	private final AtomicLong tail = new AtomicLong();
+	private long dropped = 0;
+
+	// Open addressing table of key -> latest sequence, only used by the consumer while draining
+	private final long[] latestKeys;
+	private final long[] latestSequences;
+	private final int[] latestGeneration;
+	private final int latestMask;
+	private int generation = 0;
+
+	/**
+	 * @param capacity rounded up to the next power of two
+	 */
+	RockEventRing(final int capacity)
+	{
+		final int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+		mask = size - 1;
+		keys = new long[size];
+		objectIds = new int[size];
+		ticks = new long[size];
+
+		final int tableSize = size * 2;
+		latestMask = tableSize - 1;
+		latestKeys = new long[tableSize];
+		latestSequences = new long[tableSize];
+		latestGeneration = new int[tableSize];
+	}
+
+	static long packKey(final int world, final int x, final int y, final int plane)
+	{
+		return ((long) world << 32) | (ResourceCatalog.packLocation(x, y, plane) & 0xFFFFFFFFL);
+	}
+
+	static int unpackWorld(final long key)
+	{
+		return (int) (key >>> 32);
+	}
+
+	static int unpackLocation(final long key)
+	{
+		return (int) key;
+	}
+
+	/**
+	 * Publishes an event, must only be called from the producer thread.
+	 *
+	 * @return false if the buffer was full and the event was dropped
+	 */
+	boolean offer(final long key, final int objectId, final long tick)
+	{
+		final long sequence = head.get();
+		if (sequence - tail.get() > mask)
+		{
+			dropped++;
+			return false;
+		}
+
+		final int idx = (int) sequence & mask;
+		keys[idx] = key;
+		objectIds[idx] = objectId;
+		ticks[idx] = tick;
+		head.lazySet(sequence + 1);
+		return true;
+	}
+
+	boolean isEmpty()
+	{
+		return head.get() == tail.get();
+	}
+
+	int size()
+	{
+		return (int) (head.get() - tail.get());
+	}
+
+	/**
+	 * Checks if an event for the key is still waiting to be drained, must only be called from the consumer thread
+	 */
+	boolean hasPending(final long key)
+	{
+		final long end = head.get();
+		for (long sequence = tail.get(); sequence < end; sequence++)
+		{
+			if (keys[(int) sequence & mask] == key)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * @return the number of events dropped because the buffer was full, resetting the counter
+	 */
+	long takeDropped()
+	{
+		final long count = dropped;
+		dropped = 0;
+		return count;
+	}
+
+	/**
+	 * Delivers the published events in order, skipping events that are superseded by a later event with the same key.
+	 * Must only be called from the consumer thread.
+	 *
+	 * @return the number of events delivered
+	 */
+	int drain(final Consumer consumer)
+	{
+		final long start = tail.get();
+		final long end = head.get();
+		if (start == end)
+		{
+			return 0;
+		}
+
+		if (++generation == 0)
+		{
+			// Generation wrapped so stale entries could look current
+			Arrays.fill(latestGeneration, 0);
+			generation = 1;
+		}
+
+		for (long sequence = start; sequence < end; sequence++)
+		{
+			markLatest(keys[(int) sequence & mask], sequence);
+		}
+
+		int delivered = 0;
+		long sequence = start;
+		while (sequence < end)
+		{
+			final int idx = (int) sequence & mask;
+			final long key = keys[idx];
+			sequence++;
+			if (getLatest(key) != sequence - 1)
+			{
+				continue;
+			}
+
+			delivered++;
+			if (!consumer.accept(key, objectIds[idx], ticks[idx]))
+			{
+				break;
+			}
+		}
+
+		tail.lazySet(sequence);
+		return delivered;
+	}
+
+	/**
+	 * Discards every published event, must only be called from the consumer thread
+	 */
+	void clear()
+	{
+		tail.lazySet(head.get());
+	}
+
+	private void markLatest(final long key, final long sequence)
+	{
+		int slot = hash(key) & latestMask;
+		while (latestGeneration[slot] == generation && latestKeys[slot] != key)
+		{
+			slot = (slot + 1) & latestMask;
+		}
+
+		latestGeneration[slot] = generation;
+		latestKeys[slot] = key;
+		latestSequences[slot] = sequence;
+	}
+
+	private long getLatest(final long key)
+	{
+		int slot = hash(key) & latestMask;
+		while (latestGeneration[slot] == generation)
+		{
+			if (latestKeys[slot] == key)
+			{
+				return latestSequences[slot];
+			}
+			slot = (slot + 1) & latestMask;
+		}
+
+		return -1;
+	}
+
+	private static int hash(final long key)
+	{
+		final long h = key * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
@@ -0,0 +1,306 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import com.google.gson.stream.JsonWriter;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.RuneLite;
+
+/**
+ * Logs every rock state transition to a rolling set of CSV files inside the RuneLite directory.
+ * <p>
+ * Transitions are queued from the client thread and appended to disk in batches on the executor.
+ * Exporting streams the rolled files line by line so memory use doesn't depend on the number of events.
+ */
+@Slf4j
+@Singleton
+class RockHistory
+{
+	static final String CSV_HEADER = "timestamp,world,rock,old_state,new_state,witnessed";
+
+	private static final File HISTORY_DIR = new File(RuneLite.RUNELITE_DIR, "runite-rocks");
+	private static final String FILE_NAME = "history";
+	private static final String FILE_EXTENSION = ".csv";
+	private static final long MAX_FILE_BYTES = 5 * 1024 * 1024;
+	// Number of rolled files kept in addition to the active file
+	private static final int MAX_ROLLED_FILES = 4;
+	private static final int MAX_PENDING = 10_000;
+	private static final long FLUSH_INTERVAL_SECONDS = 5;
+
+	private final ScheduledExecutorService executor;
+	private final Queue<String> pending = new ArrayBlockingQueue<>(MAX_PENDING);
+	private final AtomicInteger dropped = new AtomicInteger();
+
+	private ScheduledFuture<?> flushFuture;
+
+	@Inject
+	private RockHistory(final ScheduledExecutorService executor)
+	{
+		this.executor = executor;
+	}
+
+	void start()
+	{
+		if (flushFuture == null)
+		{
+			flushFuture = executor.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+		}
+	}
+
+	void stop()
+	{
+		if (flushFuture != null)
+		{
+			flushFuture.cancel(false);
+			flushFuture = null;
+		}
+
+		executor.execute(this::flush);
+	}
+
+	/**
+	 * Queues the transition to be written on the next flush, drops the event if the writer can't keep up
+	 */
+	void record(final RuniteRock rock, final RockState previousState)
+	{
+		final String line = rock.getUpdatedAt().toEpochMilli()
+			+ "," + rock.getWorld().getId()
+			+ "," + rock.getRock().getKey()
+			+ "," + previousState.name()
+			+ "," + RockState.of(rock).name()
+			+ "," + rock.hasWitnessedDepletion();
+
+		if (!pending.offer(line))
+		{
+			dropped.incrementAndGet();
+		}
+	}
+
+	/**
+	 * Writes all queued transitions to the active history file, rolling it over once it grows too large
+	 */
+	synchronized void flush()
+	{
+		if (pending.isEmpty())
+		{
+			return;
+		}
+
+		final int droppedEvents = dropped.getAndSet(0);
+		if (droppedEvents > 0)
+		{
+			log.warn("Dropped {} rock history events", droppedEvents);
+		}
+
+		try
+		{
+			Files.createDirectories(HISTORY_DIR.toPath());
+			final File active = getFile(0);
+			if (active.length() > MAX_FILE_BYTES)
+			{
+				roll();
+			}
+
+			final boolean writeHeader = !active.exists() || active.length() == 0;
+			try (BufferedWriter writer = Files.newBufferedWriter(active.toPath(), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND))
+			{
+				if (writeHeader)
+				{
+					writer.write(CSV_HEADER);
+					writer.newLine();
+				}
+
+				String line;
+				while ((line = pending.poll()) != null)
+				{
+					writer.write(line);
+					writer.newLine();
+				}
+			}
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to write rock history", e);
+		}
+	}
+
+	/**
+	 * Exports the recorded history to the file on the executor, as JSON if the file name ends in .json otherwise as CSV
+	 */
+	void export(final File destination, final Runnable onComplete)
+	{
+		executor.execute(() ->
+		{
+			flush();
+			try
+			{
+				exportTo(destination);
+				log.debug("Exported rock history to {}", destination);
+			}
+			catch (IOException e)
+			{
+				log.warn("Unable to export rock history", e);
+			}
+			finally
+			{
+				onComplete.run();
+			}
+		});
+	}
+
+	private synchronized void exportTo(final File destination) throws IOException
+	{
+		final boolean json = destination.getName().toLowerCase(Locale.ROOT).endsWith(".json");
+		try (BufferedWriter writer = Files.newBufferedWriter(destination.toPath(), StandardCharsets.UTF_8))
+		{
+			if (json)
+			{
+				exportJson(writer);
+			}
+			else
+			{
+				writer.write(CSV_HEADER);
+				writer.newLine();
+				for (final File file : getFilesOldestFirst())
+				{
+					try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+					{
+						String line;
+						while ((line = reader.readLine()) != null)
+						{
+							if (line.isEmpty() || line.equals(CSV_HEADER))
+							{
+								continue;
+							}
+
+							writer.write(line);
+							writer.newLine();
+						}
+					}
+				}
+			}
+		}
+	}
+
+	private void exportJson(final Writer writer) throws IOException
+	{
+		final JsonWriter json = new JsonWriter(writer);
+		json.beginArray();
+		for (final File file : getFilesOldestFirst())
+		{
+			try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8))
+			{
+				String line;
+				while ((line = reader.readLine()) != null)
+				{
+					final String[] parts = line.split(",");
+					if (parts.length != 6 || line.equals(CSV_HEADER))
+					{
+						continue;
+					}
+
+					final long timestamp;
+					final int world;
+					try
+					{
+						timestamp = Long.parseLong(parts[0]);
+						world = Integer.parseInt(parts[1]);
+					}
+					catch (NumberFormatException e)
+					{
+						// Corrupt or truncated line, e.g. from the client closing mid write
+						log.debug("Skipping malformed rock history line: {}", line);
+						continue;
+					}
+
+					json.beginObject();
+					json.name("timestamp").value(timestamp);
+					json.name("world").value(world);
+					json.name("rock").value(parts[2]);
+					json.name("oldState").value(parts[3]);
+					json.name("newState").value(parts[4]);
+					json.name("witnessed").value(Boolean.parseBoolean(parts[5]));
+					json.endObject();
+				}
+			}
+		}
+		json.endArray();
+		json.flush();
+	}
+
+	private void roll() throws IOException
+	{
+		Files.deleteIfExists(getFile(MAX_ROLLED_FILES).toPath());
+		for (int i = MAX_ROLLED_FILES - 1; i >= 0; i--)
+		{
+			final File file = getFile(i);
+			if (file.exists())
+			{
+				Files.move(file.toPath(), getFile(i + 1).toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+	}
+
+	private static List<File> getFilesOldestFirst()
+	{
+		final List<File> files = new ArrayList<>();
+		for (int i = MAX_ROLLED_FILES; i >= 0; i--)
+		{
+			final File file = getFile(i);
+			if (file.exists())
+			{
+				files.add(file);
+			}
+		}
+
+		return files;
+	}
+
+	private static File getFile(final int index)
+	{
+		return new File(HISTORY_DIR, index == 0 ? FILE_NAME + FILE_EXTENSION : FILE_NAME + "." + index + FILE_EXTENSION);
+	}
+}
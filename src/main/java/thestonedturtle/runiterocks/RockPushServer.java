@@ -0,0 +1,427 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Optional localhost only HTTP server for stream overlays and companion tools.
+ * <ul>
+ * <li>{@code GET /rocks} returns every tracked rock as JSON</li>
+ * <li>{@code GET /events} is a Server-Sent Events stream starting with a {@code snapshot} event
+ * followed by a {@code delta} event for every tick in which rocks changed</li>
+ * </ul>
+ * The immutable {@link RocksChanged} events are handed to a single fan out thread which encodes each one once, keeps
+ * the latest state for new subscribers and hands the encoded events to every subscriber. Each subscriber is written to
+ * from its own server thread through a bounded queue, subscribers that fall too far behind are disconnected.
+ * <p>
+ * Requests are only answered when their {@code Host} header names the loopback address, so web pages can't reach the
+ * server by rebinding their own domain to it.
+ */
+@Slf4j
+@Singleton
+class RockPushServer
+{
+	private static final int MAX_SUBSCRIBERS = 8;
+	private static final int SUBSCRIBER_QUEUE_SIZE = 256;
+	private static final int KEEP_ALIVE_SECONDS = 15;
+	private static final byte[] KEEP_ALIVE = ": keep-alive\n\n".getBytes(StandardCharsets.UTF_8);
+	private static final byte[] CLOSE = new byte[0];
+
+	private final Gson gson;
+
+	// Only touched from the fan out thread
+	private final Map<String, PublishedRock> state = new LinkedHashMap<>();
+	private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+	@Nullable
+	private HttpServer server;
+	// Written on the client thread and read on the server threads
+	@Nullable
+	private volatile ExecutorService fanOut;
+	@Nullable
+	private ExecutorService serverExecutor;
+	// Port the server was last started on, -1 while stopped
+	private int port = -1;
+
+	@Inject
+	private RockPushServer(final Gson gson)
+	{
+		this.gson = gson;
+	}
+
+	/**
+	 * Starts, stops or moves the server to match the config. Starting publishes every tracked rock.
+	 * Expected to be called from the client thread.
+	 */
+	void update(final boolean enabled, final int port, final Collection<RockSnapshot> rocks)
+	{
+		// The port is kept after a failed start so it isn't retried until the config changes
+		if (enabled ? port == this.port : this.port == -1)
+		{
+			return;
+		}
+
+		stop();
+		if (!enabled)
+		{
+			return;
+		}
+
+		try
+		{
+			start(port);
+		}
+		catch (IOException e)
+		{
+			log.warn("Unable to start the push server on port {}", port, e);
+			this.port = port;
+			return;
+		}
+
+		publish(new RocksChanged(new ArrayList<>(rocks), true));
+	}
+
+	/**
+	 * Hands the event to the fan out thread to be encoded and sent
+	 */
+	void publish(final RocksChanged changed)
+	{
+		final ExecutorService executor = fanOut;
+		if (executor == null)
+		{
+			return;
+		}
+
+		try
+		{
+			executor.execute(() -> fanOut(changed));
+		}
+		catch (RejectedExecutionException e)
+		{
+			// The server is being stopped
+		}
+	}
+
+	/**
+	 * Applies the event to the state and sends it to every subscriber, only called on the fan out thread
+	 */
+	private void fanOut(final RocksChanged changed)
+	{
+		final List<PublishedRock> rocks = new ArrayList<>();
+		final List<RockRemoval> removed = new ArrayList<>();
+		for (final RockSnapshot rock : changed.getChanged())
+		{
+			if (rock.isRemoved())
+			{
+				removed.add(new RockRemoval(rock));
+			}
+			else
+			{
+				rocks.add(new PublishedRock(rock));
+			}
+		}
+
+		if (changed.isFullSnapshot())
+		{
+			state.clear();
+		}
+		for (final PublishedRock rock : rocks)
+		{
+			state.put(rock.world + ":" + rock.rock, rock);
+		}
+		for (final RockRemoval removal : removed)
+		{
+			state.remove(removal.world + ":" + removal.rock);
+		}
+
+		final byte[] event = encodeEvent(changed.isFullSnapshot() ? "snapshot" : "delta", new Delta(rocks, removed));
+		for (final Subscriber subscriber : subscribers)
+		{
+			subscriber.send(event);
+		}
+	}
+
+	synchronized void stop()
+	{
+		port = -1;
+
+		if (server != null)
+		{
+			server.stop(0);
+			server = null;
+		}
+		if (fanOut != null)
+		{
+			fanOut.shutdownNow();
+			fanOut = null;
+		}
+		for (final Subscriber subscriber : subscribers)
+		{
+			subscriber.close();
+		}
+		subscribers.clear();
+		if (serverExecutor != null)
+		{
+			serverExecutor.shutdownNow();
+			serverExecutor = null;
+		}
+	}
+
+	private synchronized void start(final int port) throws IOException
+	{
+		final HttpServer httpServer = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+		httpServer.createContext("/rocks", this::handleRocks);
+		httpServer.createContext("/events", this::handleEvents);
+		serverExecutor = Executors.newCachedThreadPool(r -> daemonThread(r, "runite-rocks-push-server"));
+		httpServer.setExecutor(serverExecutor);
+		httpServer.start();
+
+		this.server = httpServer;
+		this.fanOut = Executors.newSingleThreadExecutor(r -> daemonThread(r, "runite-rocks-push-fan-out"));
+		this.port = port;
+		state.clear();
+		log.debug("Push server listening on {}", httpServer.getAddress());
+	}
+
+	private void handleRocks(final HttpExchange exchange) throws IOException
+	{
+		if (!isLoopbackHost(exchange))
+		{
+			exchange.sendResponseHeaders(403, -1);
+			exchange.close();
+			return;
+		}
+
+		final ExecutorService executor = fanOut;
+		if (executor == null)
+		{
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+
+		final byte[] body;
+		try
+		{
+			body = executor.submit(() -> gson.toJson(new ArrayList<>(state.values())).getBytes(StandardCharsets.UTF_8)).get();
+		}
+		catch (Exception e)
+		{
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "application/json");
+		exchange.sendResponseHeaders(200, body.length);
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			out.write(body);
+		}
+	}
+
+	private void handleEvents(final HttpExchange exchange) throws IOException
+	{
+		if (!isLoopbackHost(exchange))
+		{
+			exchange.sendResponseHeaders(403, -1);
+			exchange.close();
+			return;
+		}
+
+		final ExecutorService executor = fanOut;
+		if (executor == null || subscribers.size() >= MAX_SUBSCRIBERS)
+		{
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+
+		final Subscriber subscriber = new Subscriber();
+		try
+		{
+			// Registered on the fan out thread so the snapshot and the following deltas can't miss or repeat a change
+			executor.execute(() ->
+			{
+				subscriber.send(encodeEvent("snapshot", new Delta(new ArrayList<>(state.values()), new ArrayList<>())));
+				subscribers.add(subscriber);
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			// The server is being stopped
+			exchange.sendResponseHeaders(503, -1);
+			exchange.close();
+			return;
+		}
+
+		exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+		exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+		exchange.sendResponseHeaders(200, 0);
+
+		try (OutputStream out = exchange.getResponseBody())
+		{
+			while (true)
+			{
+				final byte[] event = subscriber.queue.poll(KEEP_ALIVE_SECONDS, TimeUnit.SECONDS);
+				if (event == CLOSE)
+				{
+					break;
+				}
+
+				out.write(event == null ? KEEP_ALIVE : event);
+				out.flush();
+			}
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+		catch (IOException e)
+		{
+			log.debug("Push server subscriber disconnected", e);
+		}
+		finally
+		{
+			subscribers.remove(subscriber);
+			exchange.close();
+		}
+	}
+
+	private static boolean isLoopbackHost(final HttpExchange exchange)
+	{
+		final String host = exchange.getRequestHeaders().getFirst("Host");
+		final String port = ":" + exchange.getLocalAddress().getPort();
+		return host != null && (host.equalsIgnoreCase("localhost" + port) || host.equals("127.0.0.1" + port));
+	}
+
+	private byte[] encodeEvent(final String name, final Delta delta)
+	{
+		return ("event: " + name + "\ndata: " + gson.toJson(delta) + "\n\n").getBytes(StandardCharsets.UTF_8);
+	}
+
+	private static Thread daemonThread(final Runnable runnable, final String name)
+	{
+		final Thread thread = new Thread(runnable, name);
+		thread.setDaemon(true);
+		return thread;
+	}
+
+	private class Subscriber
+	{
+		private final BlockingQueue<byte[]> queue = new ArrayBlockingQueue<>(SUBSCRIBER_QUEUE_SIZE);
+
+		private void send(final byte[] event)
+		{
+			if (!queue.offer(event))
+			{
+				log.debug("Push server subscriber fell behind, disconnecting");
+				close();
+			}
+		}
+
+		private void close()
+		{
+			subscribers.remove(this);
+			queue.clear();
+			queue.offer(CLOSE);
+		}
+	}
+
+	private static class PublishedRock
+	{
+		private final int world;
+		private final String rock;
+		private final String name;
+		private final String location;
+		private final boolean available;
+		private final boolean accurate;
+		private final long respawnTime;
+		private final long lastSeen;
+		private final int competitors;
+
+		private PublishedRock(final RockSnapshot rock)
+		{
+			this.world = rock.getWorld();
+			this.rock = rock.getRock().getKey();
+			this.name = rock.getRock().getName();
+			this.location = rock.getRock().getLocation();
+			this.available = rock.getState() == RockState.AVAILABLE;
+			this.accurate = rock.isAccurate();
+			this.respawnTime = rock.getRespawnTime().toEpochMilli();
+			this.lastSeen = rock.getLastSeen().toEpochMilli();
+			this.competitors = rock.getCompetitors();
+		}
+	}
+
+	private static class RockRemoval
+	{
+		private final int world;
+		private final String rock;
+
+		private RockRemoval(final RockSnapshot rock)
+		{
+			this.world = rock.getWorld();
+			this.rock = rock.getRock().getKey();
+		}
+	}
+
+	private static class Delta
+	{
+		private final List<PublishedRock> changed;
+		private final List<RockRemoval> removed;
+
+		private Delta(final List<PublishedRock> changed, final List<RockRemoval> removed)
+		{
+			this.changed = changed;
+			this.removed = removed;
+		}
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+
+/**
+ * Read-only view of the tracked rocks for other plugins, and the source of the {@link RocksChanged} events.
+ * <p>
+ * Changes are collected as they happen and published once per tick, the published state is an immutable map
+ * that is swapped in whole so it can be read from any thread without locking.
+ */
+@Singleton
+public class RockQueryService
+{
+	// Changes since the last publish keyed by world and rock
+	private final Map<Long, RockSnapshot> pending = new LinkedHashMap<>();
+	private boolean pendingReset = false;
+
+	private volatile ImmutableMap<Long, RockSnapshot> published = ImmutableMap.of();
+
+	/**
+	 * @return every tracked rock as of the last tick
+	 */
+	public Collection<RockSnapshot> getRocks()
+	{
+		return published.values();
+	}
+
+	public List<RockSnapshot> getRocks(final int world)
+	{
+		final List<RockSnapshot> rocks = new ArrayList<>();
+		for (final RockSnapshot rock : published.values())
+		{
+			if (rock.getWorld() == world)
+			{
+				rocks.add(rock);
+			}
+		}
+
+		return rocks;
+	}
+
+	@Nullable
+	public RockSnapshot getRock(final int world, final Rock rock)
+	{
+		return published.get(key(world, rock));
+	}
+
+	synchronized void onRockChanged(final RuniteRock rock)
+	{
+		pending.put(key(rock.getWorld().getId(), rock.getRock()), RockSnapshot.of(rock));
+	}
+
+	synchronized void onRockRemoved(final int world, final Rock rock)
+	{
+		pending.put(key(world, rock), RockSnapshot.removed(world, rock));
+	}
+
+	/**
+	 * Replaces the state with the tracked rocks on the next publish, e.g. after the rocks have been cleared
+	 */
+	synchronized void reset(final Collection<WorldTracker> trackers)
+	{
+		pending.clear();
+		pendingReset = true;
+		for (final WorldTracker tracker : trackers)
+		{
+			for (final RuniteRock rock : tracker.getRuniteRocks())
+			{
+				onRockChanged(rock);
+			}
+		}
+	}
+
+	synchronized void clear()
+	{
+		pending.clear();
+		pendingReset = false;
+		published = ImmutableMap.of();
+	}
+
+	/**
+	 * Applies the changes collected since the last call, expected to be called once per tick
+	 *
+	 * @return the event to post, or null if nothing changed
+	 */
+	@Nullable
+	synchronized RocksChanged publish()
+	{
+		if (pending.isEmpty() && !pendingReset)
+		{
+			return null;
+		}
+
+		final Map<Long, RockSnapshot> state = pendingReset ? new LinkedHashMap<>() : new LinkedHashMap<>(published);
+		for (final Map.Entry<Long, RockSnapshot> entry : pending.entrySet())
+		{
+			if (entry.getValue().isRemoved())
+			{
+				state.remove(entry.getKey());
+			}
+			else
+			{
+				state.put(entry.getKey(), entry.getValue());
+			}
+		}
+		published = ImmutableMap.copyOf(state);
+
+		final RocksChanged event = new RocksChanged(ImmutableList.copyOf(pending.values()), pendingReset);
+		pending.clear();
+		pendingReset = false;
+		return event;
+	}
+
+	private static long key(final int world, final Rock rock)
+	{
+		return ((long) world << 32) | rock.getId();
+	}
+}
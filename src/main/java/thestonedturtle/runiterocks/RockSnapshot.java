@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.time.Instant;
+import lombok.Value;
+
+/**
+ * Immutable copy of a {@link RuniteRock} for other plugins, safe to keep and share between threads.
+ */
+@Value
+public class RockSnapshot
+{
+	int world;
+	Rock rock;
+	// UNKNOWN when the rock is no longer tracked
+	RockState state;
+	// Whether the respawn time is exact, rocks we didn't see being depleted only have an estimate
+	boolean accurate;
+	Instant respawnTime;
+	Instant lastSeen;
+	int competitors;
+
+	public static RockSnapshot of(final RuniteRock rock)
+	{
+		return new RockSnapshot(
+			rock.getWorld().getId(),
+			rock.getRock(),
+			RockState.of(rock),
+			rock.isAvailable() || rock.hasWitnessedDepletion(),
+			rock.getRespawnTime(),
+			rock.getLastSeenAt(),
+			rock.getCompetitors()
+		);
+	}
+
+	static RockSnapshot removed(final int world, final Rock rock)
+	{
+		return new RockSnapshot(world, rock, RockState.UNKNOWN, false, null, null, 0);
+	}
+
+	public boolean isRemoved()
+	{
+		return state == RockState.UNKNOWN;
+	}
+}
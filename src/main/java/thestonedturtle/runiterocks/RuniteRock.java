@@ -24,6 +24,7 @@
  */
 package thestonedturtle.runiterocks;
 
+import java.time.Duration;
 import java.time.Instant;
 import lombok.AccessLevel;
 import lombok.Data;
@@ -32,32 +33,90 @@ import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.http.api.worlds.World;
 
+/**
+ * All timings are tracked in game ticks from the {@link GameClock}, the {@link Instant} getters are for display only.
+ */
 @Data
 @Slf4j
 public class RuniteRock
 {
+	// A respawn counts as seen live if the rock was seen depleted at most this many ticks before it
+	private static final long LIVE_RESPAWN_TICKS = SceneProbe.PROBE_INTERVAL_TICKS;
+
 	private final World world;
 	private final Rock rock;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private final GameClock clock;
 	private boolean available = false;
-	private Instant updatedAt = Instant.now();
-	private Instant lastSeenAt = Instant.now();
+	private long updatedTick;
+	private long lastSeenTick;
 	@Getter(AccessLevel.NONE)
 	@Setter(AccessLevel.NONE)
 	private boolean witnessedDepletion = false;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private boolean witnessedRespawn = false;
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private long depletedSeenTick = -1;
+	// Other players seen around the rock the last time we were near it
+	private int competitors = 0;
 
-	public Instant getRespawnTime()
+	public RuniteRock(final World world, final Rock rock, final GameClock clock)
+	{
+		this.world = world;
+		this.rock = rock;
+		this.clock = clock;
+		this.updatedTick = clock.now();
+		this.lastSeenTick = updatedTick;
+	}
+
+	public long getRespawnTick()
 	{
 		if (available)
 		{
-			return lastSeenAt;
+			return lastSeenTick;
 		}
 
-		return updatedAt.plus(rock.getRespawnDuration());
+		return updatedTick + rock.getRespawnTicks();
+	}
+
+	public Instant getRespawnTime()
+	{
+		return clock.toInstant(getRespawnTick());
+	}
+
+	public Instant getUpdatedAt()
+	{
+		return clock.toInstant(updatedTick);
+	}
+
+	public Instant getLastSeenAt()
+	{
+		return clock.toInstant(lastSeenTick);
+	}
+
+	/**
+	 * @return time elapsed since the respawn time, negative if the rock hasn't respawned yet
+	 */
+	public Duration getTimeSinceRespawn()
+	{
+		return Duration.ofMillis(clock.currentEpochMillis() - clock.toEpochMillis(getRespawnTick()));
+	}
+
+	public Duration getTimeSinceLastSeen()
+	{
+		return Duration.ofMillis(clock.currentEpochMillis() - clock.toEpochMillis(lastSeenTick));
 	}
 
-	public void setAvailable(final int gameObjectId)
+	/**
+	 * @param gameObjectId id of the object seen at the rocks location
+	 * @param tick         tick the object was seen at
+	 */
+	public void setAvailable(final int gameObjectId, final long tick)
 	{
-		lastSeenAt = Instant.now();
+		lastSeenTick = tick;
 
 		if (gameObjectId == rock.getActivateState())
 		{
@@ -67,25 +126,28 @@ public class RuniteRock
 			}
 
 			available = true;
-			updatedAt = Instant.now();
+			updatedTick = tick;
 			witnessedDepletion = false;
+			witnessedRespawn = depletedSeenTick != -1 && tick - depletedSeenTick <= LIVE_RESPAWN_TICKS;
 		}
 		else if (gameObjectId == rock.getDepletedState())
 		{
+			depletedSeenTick = tick;
+
 			// If rocks depleted and wasn't previously available there's no change
 			if (!available)
 			{
 				// If the respawn timer is in the past we need to assume it was updated when we couldn't see it.
-				if (getRespawnTime().compareTo(Instant.now()) < 0)
+				if (getRespawnTick() < tick)
 				{
-					updatedAt = Instant.now();
+					updatedTick = tick;
 					witnessedDepletion = false;
 				}
 				return;
 			}
 
 			available = false;
-			updatedAt = Instant.now();
+			updatedTick = tick;
 			witnessedDepletion = true;
 		}
 		else
@@ -103,4 +165,12 @@ public class RuniteRock
 	{
 		return witnessedDepletion;
 	}
+
+	/**
+	 * @return true if the rock was seen depleted right before it became available, so its updated tick is the respawn
+	 */
+	public boolean hasWitnessedRespawn()
+	{
+		return witnessedRespawn;
+	}
 }
@@ -3,6 +3,7 @@ package thestonedturtle.runiterocks;
 import net.runelite.client.config.Config;
 import net.runelite.client.config.ConfigGroup;
 import net.runelite.client.config.ConfigItem;
+import net.runelite.client.config.Range;
 
 @ConfigGroup(RuniteRocksConfig.GROUP)
 public interface RuniteRocksConfig extends Config
@@ -65,4 +66,138 @@ public interface RuniteRocksConfig extends Config
 	{
 		return true;
 	}
+
+	@ConfigItem(
+		position = 5,
+		keyName = "showOverlay",
+		name = "Show Overlay",
+		description = "<html>Shows an overlay listing the rocks that will respawn next</html>"
+	)
+	default boolean showOverlay()
+	{
+		return false;
+	}
+
+	@Range(
+		min = 1,
+		max = RuniteRocksOverlay.MAX_ROCKS
+	)
+	@ConfigItem(
+		position = 6,
+		keyName = "overlayRockCount",
+		name = "Overlay Rock Count",
+		description = "<html>How many of the next respawning rocks should be shown in the overlay</html>"
+	)
+	default int overlayRockCount()
+	{
+		return 5;
+	}
+
+	@ConfigItem(
+		position = 7,
+		keyName = "highlightRockTiles",
+		name = "Highlight Rock Tiles",
+		description = "<html>Highlights tracked rocks in the current world and draws their respawn countdown</html>"
+	)
+	default boolean highlightRockTiles()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		position = 8,
+		keyName = "autoHop",
+		name = "Auto-hop to next rock",
+		description = "<html>When a rock you are watching is depleted automatically hop to the world where" +
+			"<br/>a rock at the same location is predicted to be available next</html>"
+	)
+	default boolean autoHop()
+	{
+		return false;
+	}
+
+	@ConfigItem(
+		position = 9,
+		keyName = "recordHistory",
+		name = "Record History",
+		description = "<html>Records every rock state change to a file inside the .runelite/runite-rocks folder" +
+			"<br/>The history can be exported by right clicking the table header</html>"
+	)
+	default boolean recordHistory()
+	{
+		return false;
+	}
+
+	@Range(
+		min = 100,
+		max = 50_000
+	)
+	@ConfigItem(
+		position = 10,
+		keyName = "eventBudgetMicros",
+		name = "Event Budget (microseconds)",
+		description = "<html>Maximum time spent processing rock events each game tick" +
+			"<br/>Events that don't fit in the budget are processed on the next tick</html>"
+	)
+	default int eventBudgetMicros()
+	{
+		return 2000;
+	}
+
+	@ConfigItem(
+		position = 11,
+		keyName = "alertRules",
+		name = "Alert Rules",
+		description = "<html>One alert per line, each a list of conditions separated by ;" +
+			"<br/>e.g. at least 2; world is MEMBERS; world not PVP; respawn within 60" +
+			"<br/>Conditions: location &lt;text&gt;, rock &lt;name&gt;, world &lt;id&gt;, world is/not &lt;type&gt;," +
+			"<br/>available, respawn within &lt;seconds&gt;, at least &lt;count&gt;</html>"
+	)
+	default String alertRules()
+	{
+		return "";
+	}
+
+	@Range(
+		max = 100
+	)
+	@ConfigItem(
+		position = 12,
+		keyName = "maxContention",
+		name = "Max Contention",
+		description = "<html>Hides rocks whose contention score is above this value, 0 shows every rock" +
+			"<br/>The score counts recent depletions by other players, weighted by how quickly they were mined" +
+			"<br/>Sort by contention by right clicking the table header</html>"
+	)
+	default int maxContention()
+	{
+		return 0;
+	}
+
+	@ConfigItem(
+		position = 13,
+		keyName = "pushServer",
+		name = "Local Push Server",
+		description = "<html>Serves the tracked rocks to stream overlays and other tools on this computer" +
+			"<br/>GET /rocks returns every rock as JSON, /events streams changes as Server-Sent Events</html>"
+	)
+	default boolean pushServer()
+	{
+		return false;
+	}
+
+	@Range(
+		min = 1024,
+		max = 65535
+	)
+	@ConfigItem(
+		position = 14,
+		keyName = "pushServerPort",
+		name = "Push Server Port",
+		description = "<html>Port the local push server listens on, only connections from this computer are accepted</html>"
+	)
+	default int pushServerPort()
+	{
+		return 8788;
+	}
 }
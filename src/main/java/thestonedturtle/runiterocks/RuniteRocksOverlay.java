@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import javax.inject.Inject;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayPosition;
+import net.runelite.client.ui.overlay.components.ComponentConstants;
+
+/**
+ * Lists the next rocks to respawn across every tracked world.
+ * <p>
+ * The sorted list is only rebuilt after {@link #invalidate()} is called and the countdown text is only
+ * reformatted once per second, so rendering a frame does not allocate.
+ */
+class RuniteRocksOverlay extends Overlay
+{
+	static final int MAX_ROCKS = 10;
+
+	private static final String TITLE = "Runite Rocks";
+	private static final String AVAILABLE = "Available";
+	private static final int PADDING = 4;
+	private static final int COLUMN_GAP = 8;
+	private static final int LINE_GAP = 2;
+
+	private static final Color RUNITE_COLOR = new Color(113, 160, 167);
+	private static final Color INACCURATE_COLOR = new Color(255, 152, 31);
+
+	private final RuniteRocksPlugin plugin;
+
+	private final RuniteRock[] upcoming = new RuniteRock[MAX_ROCKS];
+	private final long[] respawnMillis = new long[MAX_ROCKS];
+	private final String[] worldText = new String[MAX_ROCKS];
+	private final String[] timerText = new String[MAX_ROCKS];
+	private final Color[] timerColor = new Color[MAX_ROCKS];
+	private final Dimension dimension = new Dimension();
+	private int count = 0;
+
+	private boolean enabled;
+	private int maxRocks;
+	private boolean ignoreInaccurate;
+
+	private boolean dirty = true;
+	private long lastRefreshSecond = -1;
+	private int worldWidth;
+	private int nameWidth;
+	private int timerWidth;
+
+	@Inject
+	private RuniteRocksOverlay(final RuniteRocksPlugin plugin)
+	{
+		this.plugin = plugin;
+		setPosition(OverlayPosition.TOP_LEFT);
+	}
+
+	/**
+	 * Reads the config values used while rendering so the config proxy isn't called each frame
+	 */
+	void updateConfig()
+	{
+		final ConfigSnapshot config = plugin.getConfigSnapshot();
+		enabled = config.isShowOverlay();
+		maxRocks = Math.max(1, Math.min(MAX_ROCKS, config.getOverlayRockCount()));
+		ignoreInaccurate = config.isIgnoreInaccurate();
+		invalidate();
+	}
+
+	/**
+	 * Marks the cached rock list as stale, it will be rebuilt on the next frame
+	 */
+	void invalidate()
+	{
+		dirty = true;
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (!enabled)
+		{
+			return null;
+		}
+
+		if (dirty)
+		{
+			rebuild();
+		}
+
+		if (count == 0)
+		{
+			return null;
+		}
+
+		graphics.setFont(FontManager.getRunescapeSmallFont());
+		final FontMetrics metrics = graphics.getFontMetrics();
+
+		final long nowMillis = plugin.getGameClock().currentEpochMillis();
+		final long second = nowMillis / 1000;
+		if (second != lastRefreshSecond)
+		{
+			refreshTimers(nowMillis, metrics);
+			lastRefreshSecond = second;
+		}
+
+		final int lineHeight = metrics.getHeight() + LINE_GAP;
+		final int width = Math.max(metrics.stringWidth(TITLE), worldWidth + nameWidth + timerWidth + COLUMN_GAP * 2) + PADDING * 2;
+		final int height = lineHeight * (count + 1) + PADDING * 2;
+
+		graphics.setColor(ComponentConstants.STANDARD_BACKGROUND_COLOR);
+		graphics.fillRect(0, 0, width, height);
+
+		int y = PADDING + metrics.getAscent();
+		graphics.setColor(Color.WHITE);
+		graphics.drawString(TITLE, (width - metrics.stringWidth(TITLE)) / 2, y);
+
+		final int nameX = PADDING + worldWidth + COLUMN_GAP;
+		final int timerX = nameX + nameWidth + COLUMN_GAP;
+		for (int i = 0; i < count; i++)
+		{
+			y += lineHeight;
+			graphics.setColor(Color.WHITE);
+			graphics.drawString(worldText[i], PADDING, y);
+			graphics.drawString(upcoming[i].getRock().getName(), nameX, y);
+			graphics.setColor(timerColor[i]);
+			graphics.drawString(timerText[i], timerX, y);
+		}
+
+		dimension.setSize(width, height);
+		return dimension;
+	}
+
+	/**
+	 * Selects the next {@code maxRocks} rocks to respawn from every tracked world
+	 */
+	private void rebuild()
+	{
+		count = 0;
+		for (final WorldTracker tracker : plugin.getWorldMap().values())
+		{
+			for (final RuniteRock rock : tracker.getRuniteRocks())
+			{
+				if (ignoreInaccurate && !(rock.hasWitnessedDepletion() || rock.isAvailable()))
+				{
+					continue;
+				}
+
+				insert(rock, plugin.getGameClock().toEpochMillis(rock.getRespawnTick()));
+			}
+		}
+
+		for (int i = count; i < MAX_ROCKS; i++)
+		{
+			upcoming[i] = null;
+		}
+
+		for (int i = 0; i < count; i++)
+		{
+			worldText[i] = "W" + upcoming[i].getWorld().getId();
+		}
+
+		dirty = false;
+		lastRefreshSecond = -1;
+	}
+
+	/**
+	 * Insertion into the fixed size, respawn ordered, array of upcoming rocks
+	 */
+	private void insert(final RuniteRock rock, final long respawn)
+	{
+		if (count == maxRocks && respawn >= respawnMillis[count - 1])
+		{
+			return;
+		}
+
+		int idx = count == maxRocks ? count - 1 : count++;
+		while (idx > 0 && respawnMillis[idx - 1] > respawn)
+		{
+			upcoming[idx] = upcoming[idx - 1];
+			respawnMillis[idx] = respawnMillis[idx - 1];
+			idx--;
+		}
+
+		upcoming[idx] = rock;
+		respawnMillis[idx] = respawn;
+	}
+
+	private void refreshTimers(final long nowMillis, final FontMetrics metrics)
+	{
+		worldWidth = 0;
+		nameWidth = 0;
+		timerWidth = 0;
+		for (int i = 0; i < count; i++)
+		{
+			final RuniteRock rock = upcoming[i];
+			final long remaining = respawnMillis[i] - nowMillis;
+			if (rock.isAvailable() || remaining <= 0)
+			{
+				timerText[i] = AVAILABLE;
+				timerColor[i] = rock.isAvailable() ? RUNITE_COLOR : INACCURATE_COLOR;
+			}
+			else
+			{
+				final long seconds = (remaining + 999) / 1000;
+				timerText[i] = String.format("%d:%02d", seconds / 60, seconds % 60);
+				timerColor[i] = rock.hasWitnessedDepletion() ? Color.LIGHT_GRAY : INACCURATE_COLOR;
+			}
+
+			worldWidth = Math.max(worldWidth, metrics.stringWidth(worldText[i]));
+			nameWidth = Math.max(nameWidth, metrics.stringWidth(rock.getRock().getName()));
+			timerWidth = Math.max(timerWidth, metrics.stringWidth(timerText[i]));
+		}
+	}
+}
@@ -25,37 +25,68 @@
  */
 package thestonedturtle.runiterocks;
 
-import com.google.common.collect.Ordering;
 import java.awt.BorderLayout;
 import java.awt.Dimension;
 import java.awt.GridLayout;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.io.File;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ScheduledExecutorService;
 import javax.annotation.Nullable;
+import javax.swing.JFileChooser;
 import javax.swing.JPanel;
 import javax.swing.SwingUtilities;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import net.runelite.client.ui.DynamicGridLayout;
 import net.runelite.client.ui.PluginPanel;
 import net.runelite.http.api.worlds.World;
+import net.runelite.http.api.worlds.WorldType;
+import thestonedturtle.runiterocks.ui.GroupRow;
+import thestonedturtle.runiterocks.ui.SessionHeader;
 import thestonedturtle.runiterocks.ui.TableHeader;
 import thestonedturtle.runiterocks.ui.TableRow;
+import thestonedturtle.runiterocks.ui.TimelineView;
 
 /**
  * Modified version of the WorldSwitcherPanel
+ * <p>
+ * The header and rows are only built once the panel is first opened, until then updates are ignored.
  */
+@Slf4j
 public class RuniteRocksPanel extends PluginPanel
 {
 	public static final int WORLD_COLUMN_WIDTH = 55;
 	public static final int LOCATION_COLUMN_WIDTH = 45;
 	public static final int TIME_COLUMN_WIDTH = 70;
 	private static final int HEADER_HEIGHT = 20;
+	// Maximum number of unused rows kept around for reuse
+	private static final int MAX_POOLED_ROWS = 64;
+	// Expected value scores are reused until the rock changes or this many ticks pass
+	private static final int SCORE_BUCKET_TICKS = 10;
+	// The chance a rock seen available is still there halves every this many ticks
+	private static final double AVAILABLE_HALF_LIFE_TICKS = 100;
+	private static final double INACCURATE_CERTAINTY = 0.5;
+	private static final double DANGEROUS_WORLD_PENALTY = 0.5;
+	private static final int MAX_SORT_KEYS = 4;
+	private static final long SESSION_REFRESH_MILLIS = 10_000;
+	private static final Comparator<TableRow> SORT_KEY_COMPARATOR = (r1, r2) -> compareSortKeys(r1.getSortKey(), r2.getSortKey());
 
 	@Getter
 	private final List<TableRow> rows = new ArrayList<>();
+	// Rows currently bound to a rock, keyed by world and rock
+	private final Map<Long, TableRow> boundRows = new HashMap<>();
+	private final Deque<TableRow> rowPool = new ArrayDeque<>();
 	private final JPanel listContainer = new JPanel();
 	private final RuniteRocksPlugin plugin;
 
@@ -64,22 +95,125 @@ public class RuniteRocksPanel extends PluginPanel
 	private TableHeader respawnHeader;
 	private TableHeader lastVisitHeader;
 
-	private ListOrdering sortOrder = ListOrdering.WORLD;
-	private boolean ascendingOrder = false;
-
-	RuniteRocksPanel(RuniteRocksPlugin plugin)
+	// Keys the rows are sorted by, in order of priority
+	private final List<SortKey> sortKeys = new ArrayList<>();
+	private boolean built = false;
+	private final RefreshScheduler refreshScheduler;
+	// The session rates move slowly, so the header is refreshed separately at a coarser rate than the counters
+	private final RefreshScheduler sessionScheduler;
+	private TimelineView timelineView;
+	private boolean timelineMode = false;
+	// Aggregates and their rows by location, only maintained while grouped by location
+	private boolean groupedMode = false;
+	private final Map<String, LocationAggregate> aggregates = new TreeMap<>();
+	private final Map<String, GroupRow> groupRows = new HashMap<>();
+	private SessionHeader sessionHeader;
+
+	RuniteRocksPanel(RuniteRocksPlugin plugin, ScheduledExecutorService executor)
 	{
 		this.plugin = plugin;
+		this.refreshScheduler = new RefreshScheduler(executor, this::refreshTimers, this::isTimeDependent);
+		this.sessionScheduler = new RefreshScheduler(executor, SESSION_REFRESH_MILLIS, this::updateSession, plugin.getSessionStats()::isTiming);
+		sortKeys.add(new SortKey(ListOrdering.WORLD, false));
 
 		setBorder(null);
 		setLayout(new DynamicGridLayout(0, 1));
+	}
+
+	@Override
+	public void onActivate()
+	{
+		build();
+		refreshScheduler.setVisible(true);
+		sessionScheduler.setVisible(true);
+	}
+
+	@Override
+	public void onDeactivate()
+	{
+		refreshScheduler.setVisible(false);
+		sessionScheduler.setVisible(false);
+	}
+
+	void setInGame(final boolean inGame)
+	{
+		refreshScheduler.setLoggedIn(inGame);
+		sessionScheduler.setLoggedIn(inGame);
+	}
 
+	void shutDown()
+	{
+		refreshScheduler.stop();
+		sessionScheduler.stop();
+	}
+
+	private void build()
+	{
+		if (built)
+		{
+			return;
+		}
+
+		final long start = System.nanoTime();
 		final JPanel headerContainer = buildHeader();
+		sessionHeader = new SessionHeader();
 
 		listContainer.setLayout(new GridLayout(0, 1));
+		timelineView = new TimelineView(plugin::hopToWorld, plugin.getGameClock()::currentEpochMillis);
+		timelineView.setVisible(false);
 
+		add(sessionHeader);
 		add(headerContainer);
 		add(listContainer);
+		add(timelineView);
+		built = true;
+		populate();
+		updateSession();
+
+		log.debug("Built the panel in {}ms", (System.nanoTime() - start) / 1_000_000);
+	}
+
+	void updateSession()
+	{
+		if (!built)
+		{
+			return;
+		}
+
+		final SessionStats stats = plugin.getSessionStats();
+		final long now = System.currentTimeMillis();
+		final double orePerHour = stats.getOrePerHour(now);
+		final double hopsPerOre = stats.getHopsPerOre(now);
+
+		final String rates = (orePerHour < 0 ? "-" : String.format("%.0f", orePerHour)) + " ore/hr, "
+			+ (hopsPerOre < 0 ? "-" : String.format("%.1f", hopsPerOre)) + " hops/ore";
+		final String activity = String.format("Walk %.0f%%, Hop %.0f%%, Wait %.0f%%",
+			stats.getActivityShare(SessionStats.Activity.WALKING, now) * 100,
+			stats.getActivityShare(SessionStats.Activity.HOPPING, now) * 100,
+			stats.getActivityShare(SessionStats.Activity.WAITING, now) * 100);
+		final long minutes = stats.getSessionMillis(now) / 60_000;
+		final TickBudget budget = plugin.getEventBudget();
+		final String toolTip = String.format("<html>Session: %d:%02d<br/>Ore mined: %d<br/>Hops: %d<br/>Rates are over the last %d minutes"
+				+ "<br/>Event budget overruns: %d ticks, %d events carried over (max %d)</html>",
+			minutes / 60, minutes % 60, stats.getTotalOre(), stats.getTotalHops(), SessionStats.HISTORY_MINUTES,
+			budget.getOverrunTicks(), budget.getTotalCarriedOver(), budget.getMaxCarriedOver());
+
+		sessionHeader.update(rates, activity, toolTip);
+	}
+
+	/**
+	 * Called from the client thread when an ore or hop is counted
+	 */
+	void onSessionChanged()
+	{
+		SwingUtilities.invokeLater(this::updateSession);
+		sessionScheduler.wake();
+	}
+
+	private void resetSession()
+	{
+		plugin.getSessionStats().reset(System.currentTimeMillis());
+		updateSession();
 	}
 
 	void switchCurrentHighlight(int newWorld, int lastWorld)
@@ -103,37 +237,71 @@ public class RuniteRocksPanel extends PluginPanel
 
 	public void updateRuniteRocks(final Collection<RuniteRock> runeRocks)
 	{
+		if (!built)
+		{
+			return;
+		}
+
 		for (final RuniteRock runiteRock : runeRocks)
 		{
 			updateRuniteRock(runiteRock);
 		}
 
 		updateList();
+		refreshScheduler.wake();
 	}
 
 	public void updateRuniteRock(@Nullable final RuniteRock runeRock)
 	{
-		if (runeRock == null)
+		if (runeRock == null || !built)
 		{
 			return;
 		}
 
+		if (groupedMode)
+		{
+			getAggregate(runeRock.getRock().getLocation()).update(runeRock);
+		}
+
 		final boolean currentWorld = runeRock.getWorld() == plugin.getTracker().getWorld();
-		for (TableRow row : rows)
+		final long key = rowKey(runeRock.getWorld().getId(), runeRock.getRock());
+		final TableRow row = boundRows.get(key);
+		if (row != null)
 		{
-			if (runeRock.matches(row.getRuniteRock()))
-			{
-				rows.remove(row);
-				break;
-			}
+			bindRow(row, runeRock.getWorld(), currentWorld, runeRock);
+			return;
 		}
 
-		rows.add(buildRow(runeRock.getWorld(), currentWorld, runeRock));
+		// Rows are only built for the rocks of expanded groups
+		if (groupedMode && !groupRows.get(runeRock.getRock().getLocation()).isExpanded())
+		{
+			return;
+		}
+
+		final TableRow newRow = obtainRow();
+		bindRow(newRow, runeRock.getWorld(), currentWorld, runeRock);
+		boundRows.put(key, newRow);
+		rows.add(newRow);
 	}
 
+	/**
+	 * Binds a row to every tracked rock, reusing the existing row for each rock where possible.
+	 * Rows for rocks that are no longer tracked are returned to the pool.
+	 */
 	public void populate()
 	{
+		if (!built)
+		{
+			return;
+		}
+
+		final Map<Long, TableRow> previousRows = new HashMap<>(boundRows);
+		boundRows.clear();
 		rows.clear();
+		for (final LocationAggregate aggregate : aggregates.values())
+		{
+			aggregate.clear();
+		}
 
 		for (final WorldTracker tracker : plugin.getWorldMap().values())
 		{
@@ -142,162 +310,527 @@ public class RuniteRocksPanel extends PluginPanel
 
 			for (final RuniteRock rock : tracker.getRuniteRocks())
 			{
-				rows.add(buildRow(world, currentWorld, rock));
+				if (groupedMode)
+				{
+					getAggregate(rock.getRock().getLocation()).update(rock);
+					if (!groupRows.get(rock.getRock().getLocation()).isExpanded())
+					{
+						continue;
+					}
+				}
+
+				final long key = rowKey(world.getId(), rock.getRock());
+				TableRow row = previousRows.remove(key);
+				if (row == null)
+				{
+					row = obtainRow();
+				}
+
+				bindRow(row, world, currentWorld, rock);
+				boundRows.put(key, row);
+				rows.add(row);
 			}
 		}
 
+		for (final TableRow row : previousRows.values())
+		{
+			releaseRow(row);
+		}
+
+		// Locations that no longer have any tracked rocks
+		aggregates.values().removeIf(aggregate ->
+		{
+			if (aggregate.isEmpty())
+			{
+				groupRows.remove(aggregate.getLocation());
+				return true;
+			}
+			return false;
+		});
+
 		updateList();
+		refreshScheduler.wake();
 	}
 
-	public void updateList()
+	private LocationAggregate getAggregate(final String location)
 	{
-		Ordering<TableRow> ordering = new Ordering<TableRow>()
+		return aggregates.computeIfAbsent(location, k ->
 		{
-			@Override
-			public int compare(@Nullable TableRow r1, @Nullable TableRow r2)
+			groupRows.put(location, new GroupRow(location, () -> toggleGroup(location)));
+			return new LocationAggregate(location);
+		});
+	}
+
+	private void toggleGrouped()
+	{
+		groupedMode = !groupedMode;
+		aggregates.clear();
+		groupRows.clear();
+		populate();
+	}
+
+	/**
+	 * Binds rows for the rocks at the location when expanding and returns them to the pool when collapsing
+	 */
+	private void toggleGroup(final String location)
+	{
+		final GroupRow groupRow = groupRows.get(location);
+		final LocationAggregate aggregate = aggregates.get(location);
+		if (groupRow == null || aggregate == null)
+		{
+			return;
+		}
+
+		groupRow.setExpanded(!groupRow.isExpanded());
+		for (final RuniteRock rock : aggregate.getRocks())
+		{
+			final long key = rowKey(rock.getWorld().getId(), rock.getRock());
+			if (groupRow.isExpanded())
 			{
-				// ordering.nullsLast() handles these
-				if (r1 == null || r2 == null)
+				final TableRow row = obtainRow();
+				bindRow(row, rock.getWorld(), rock.getWorld() == plugin.getTracker().getWorld(), rock);
+				boundRows.put(key, row);
+				rows.add(row);
+			}
+			else
+			{
+				final TableRow row = boundRows.remove(key);
+				if (row != null)
 				{
-					return 0;
+					rows.remove(row);
+					releaseRow(row);
 				}
+			}
+		}
+
+		updateList();
+	}
+
+	private String describeGroup(final LocationAggregate aggregate)
+	{
+		final StringBuilder summary = new StringBuilder();
+		summary.append(aggregate.getAvailableCount()).append(" available");
+
+		final long nextTick = aggregate.getNextRespawnTick();
+		if (nextTick != Long.MAX_VALUE)
+		{
+			final long seconds = (plugin.getGameClock().toEpochMillis(nextTick) - plugin.getGameClock().currentEpochMillis()) / 1000;
+			summary.append(seconds <= 0 ? ", next due" : String.format(", next in %d:%02d", seconds / 60, seconds % 60));
+		}
+
+		final int bestWorld = aggregate.getBestWorld();
+		if (bestWorld != -1)
+		{
+			summary.append(", best world ").append(bestWorld);
+		}
+
+		return summary.toString();
+	}
 
-				switch (sortOrder)
+	/**
+	 * Applies the display related config options to the existing rows
+	 */
+	public void updateDisplayOptions()
+	{
+		final ConfigSnapshot config = plugin.getConfigSnapshot();
+		for (final TableRow row : rows)
+		{
+			row.setDisplayOptions(config);
+			row.refresh();
+		}
+		refreshScheduler.wake();
+	}
+
+	/**
+	 * @return true if a row shows a ticking counter or the order changes with time
+	 */
+	private boolean isTimeDependent()
+	{
+		if (timelineMode)
+		{
+			return timelineView.hasUpcoming();
+		}
+
+		final long now = plugin.getGameClock().now();
+		for (final LocationAggregate aggregate : aggregates.values())
+		{
+			if (aggregate.getNextRespawnTick() != Long.MAX_VALUE && aggregate.getNextRespawnTick() > now)
+			{
+				return true;
+			}
+		}
+
+		if (isSortedBy(ListOrdering.EXPECTED_VALUE))
+		{
+			return true;
+		}
+
+		final ConfigSnapshot config = plugin.getConfigSnapshot();
+		if (config.isVisitCounter())
+		{
+			return !rows.isEmpty();
+		}
+
+		if (config.isRespawnCounter())
+		{
+			for (final TableRow row : rows)
+			{
+				// Counters stop once they reach the respawn time and show available
+				if (!row.getRuniteRock().isAvailable() && row.getRuniteRock().getTimeSinceRespawn().isNegative())
 				{
-					case WORLD:
-						return Integer.compare(r1.getRuniteRock().getWorld().getId(), r2.getRuniteRock().getWorld().getId());
-					case LOCATION:
-						return r1.getRuniteRock().getRock().compareTo(r2.getRuniteRock().getRock());
-					case RESPAWN_TIME:
-						// Accurate timers should be prioritized, if both times are accurate use normal comparison.
-						if (plugin.config.accurateRespawnPriority())
-						{
-							final boolean r1Accurate = r1.getRuniteRock().hasWitnessedDepletion() || r1.getRuniteRock().isAvailable();
-							final boolean r2Accurate = r2.getRuniteRock().hasWitnessedDepletion() || r2.getRuniteRock().isAvailable();
-							if (r1Accurate && !r2Accurate)
-							{
-								return -1;
-							}
-							else if (!r1Accurate && r2Accurate)
-							{
-								return 1;
-							}
-						}
-
-						return r1.getRuniteRock().getRespawnTime().compareTo(r2.getRuniteRock().getRespawnTime());
-					case LAST_VISITED:
-						return r1.getRuniteRock().getLastSeenAt().compareTo(r2.getRuniteRock().getLastSeenAt());
-					default:
-						return 0;
+					return true;
 				}
 			}
-		};
+		}
 
-		if (!ascendingOrder)
+		return false;
+	}
+
+	public void updateList()
+	{
+		if (!built)
+		{
+			return;
+		}
+
+		// Snapshot is immutable so it can safely be captured for the whole sort
+		final ConfigSnapshot config = plugin.getConfigSnapshot();
+		final ContentionStats contention = plugin.getContentionStats();
+		final long nowMillis = System.currentTimeMillis();
+		if (isSortedBy(ListOrdering.EXPECTED_VALUE))
 		{
-			ordering = ordering.reverse();
+			updateSortScores(contention, nowMillis);
 		}
-		ordering = ordering.nullsLast();
 
-		rows.sort(ordering);
+		// The whole key chain is packed in to longs up front so the sort only compares primitives
+		for (final TableRow row : rows)
+		{
+			row.setSortKey(buildSortKey(row, config, contention, nowMillis));
+		}
+		rows.sort(SORT_KEY_COMPARATOR);
 		listContainer.removeAll();
 
+		final List<RuniteRock> shownRocks = new ArrayList<>(rows.size());
+		final Map<String, List<TableRow>> groupedRows = new HashMap<>();
 		for (TableRow row : rows)
 		{
-			if (plugin.config.ignoreInaccurate() && !(row.getRuniteRock().hasWitnessedDepletion() || row.getRuniteRock().isAvailable()))
+			if (config.isIgnoreInaccurate() && !(row.getRuniteRock().hasWitnessedDepletion() || row.getRuniteRock().isAvailable()))
+			{
+				continue;
+			}
+			if (config.getMaxContention() > 0 && contentionScore(contention, row, nowMillis) > config.getMaxContention())
 			{
 				continue;
 			}
-			listContainer.add(row);
 			row.refresh();
+			shownRocks.add(row.getRuniteRock());
+			if (groupedMode)
+			{
+				groupedRows.computeIfAbsent(row.getRuniteRock().getRock().getLocation(), k -> new ArrayList<>()).add(row);
+			}
+			else
+			{
+				listContainer.add(row);
+			}
+		}
+
+		if (groupedMode)
+		{
+			shownRocks.clear();
+			for (final LocationAggregate aggregate : aggregates.values())
+			{
+				final GroupRow groupRow = groupRows.get(aggregate.getLocation());
+				groupRow.setSummary(describeGroup(aggregate));
+				listContainer.add(groupRow);
+				for (final TableRow row : groupedRows.getOrDefault(aggregate.getLocation(), Collections.emptyList()))
+				{
+					listContainer.add(row);
+				}
+				// The timeline shows every rock, including the collapsed ones
+				shownRocks.addAll(aggregate.getRocks());
+			}
 		}
 
 		listContainer.revalidate();
 		listContainer.repaint();
+		if (timelineMode)
+		{
+			timelineView.setRocks(shownRocks);
+		}
 	}
 
-	private void orderBy(final ListOrdering order)
+	/**
+	 * Called every second while something shown depends on the time. The timeline only needs to move its axis.
+	 */
+	private void refreshTimers()
 	{
-		worldHeader.highlight(order == ListOrdering.WORLD, ascendingOrder);
-		locationHeader.highlight(order == ListOrdering.LOCATION, ascendingOrder);
-		respawnHeader.highlight(order == ListOrdering.RESPAWN_TIME, ascendingOrder);
-		lastVisitHeader.highlight(order == ListOrdering.LAST_VISITED, ascendingOrder);
+		if (timelineMode)
+		{
+			timelineView.repaint();
+		}
+		else
+		{
+			updateList();
+		}
+	}
 
-		this.sortOrder = order;
+	private void toggleTimeline()
+	{
+		timelineMode = !timelineMode;
+		listContainer.setVisible(!timelineMode);
+		timelineView.setVisible(timelineMode);
 		updateList();
+		revalidate();
+		refreshScheduler.wake();
 	}
 
 	/**
-	 * Builds the entire table header.
+	 * Encodes the rows value for every sort key as a long, negated for descending keys, followed by the rows
+	 * world and rock so rows that tie on every key keep the same order between refreshes.
+	 * The rows previous key array is reused when the chain length hasn't changed.
 	 */
-	private JPanel buildHeader()
+	private long[] buildSortKey(final TableRow row, final ConfigSnapshot config, final ContentionStats contention, final long nowMillis)
 	{
-		JPanel header = new JPanel(new DynamicGridLayout(0, 2));
-		JPanel leftSide = new JPanel(new BorderLayout());
-		JPanel rightSide = new JPanel(new BorderLayout());
+		final boolean accuratePriority = config.isAccurateRespawnPriority();
+		int length = 1;
+		for (final SortKey sortKey : sortKeys)
+		{
+			length += sortKey.ordering == ListOrdering.RESPAWN_TIME && accuratePriority ? 2 : 1;
+		}
 
-		worldHeader = new TableHeader("World", sortOrder == ListOrdering.WORLD, ascendingOrder, this::populate, plugin::clearRocks);
-		worldHeader.setPreferredSize(new Dimension(WORLD_COLUMN_WIDTH, HEADER_HEIGHT));
-		worldHeader.addMouseListener(new MouseAdapter()
+		final long[] previous = row.getSortKey();
+		final long[] key = previous != null && previous.length == length ? previous : new long[length];
+		final RuniteRock rock = row.getRuniteRock();
+		int i = 0;
+		for (final SortKey sortKey : sortKeys)
 		{
-			@Override
-			public void mousePressed(MouseEvent mouseEvent)
+			final long sign = sortKey.ascending ? 1 : -1;
+			switch (sortKey.ordering)
 			{
-				if (SwingUtilities.isRightMouseButton(mouseEvent))
-				{
-					return;
-				}
-				ascendingOrder = sortOrder != ListOrdering.WORLD || !ascendingOrder;
-				orderBy(ListOrdering.WORLD);
+				case WORLD:
+					key[i++] = sign * rock.getWorld().getId();
+					break;
+				case WORLD_TYPE:
+					key[i++] = sign * worldTypeRank(rock.getWorld());
+					break;
+				case LOCATION:
+					key[i++] = sign * rock.getRock().getId();
+					break;
+				case RESPAWN_TIME:
+					// Accurate timers should be prioritized, if both times are accurate use normal comparison.
+					if (accuratePriority)
+					{
+						key[i++] = sign * (rock.hasWitnessedDepletion() || rock.isAvailable() ? 0 : 1);
+					}
+					key[i++] = sign * rock.getRespawnTick();
+					break;
+				case LAST_VISITED:
+					key[i++] = sign * rock.getLastSeenTick();
+					break;
+				case CONTENTION:
+					// The bits of a non negative double sort the same way as the double
+					key[i++] = sign * Double.doubleToLongBits(contentionScore(contention, row, nowMillis));
+					break;
+				case EXPECTED_VALUE:
+					// Highest value first when ascending
+					key[i++] = -sign * Double.doubleToLongBits(row.getSortScore());
+					break;
 			}
-		});
+		}
+		key[i] = rowKey(rock.getWorld().getId(), rock.getRock());
 
-		locationHeader = new TableHeader("Loc", sortOrder == ListOrdering.LOCATION, ascendingOrder, this::populate, plugin::clearRocks);
-		locationHeader.setPreferredSize(new Dimension(LOCATION_COLUMN_WIDTH, HEADER_HEIGHT));
-		locationHeader.addMouseListener(new MouseAdapter()
+		return key;
+	}
+
+	static int compareSortKeys(final long[] k1, final long[] k2)
+	{
+		final int length = Math.min(k1.length, k2.length);
+		for (int i = 0; i < length; i++)
 		{
-			@Override
-			public void mousePressed(MouseEvent mouseEvent)
+			if (k1[i] != k2[i])
 			{
-				if (SwingUtilities.isRightMouseButton(mouseEvent))
-				{
-					return;
-				}
-				ascendingOrder = sortOrder != ListOrdering.LOCATION || !ascendingOrder;
-				orderBy(ListOrdering.LOCATION);
+				return k1[i] < k2[i] ? -1 : 1;
 			}
-		});
+		}
 
-		respawnHeader = new TableHeader("Respawn", sortOrder == ListOrdering.RESPAWN_TIME, ascendingOrder, this::populate, plugin::clearRocks);
-		respawnHeader.setPreferredSize(new Dimension(TIME_COLUMN_WIDTH, HEADER_HEIGHT));
-		respawnHeader.addMouseListener(new MouseAdapter()
+		return Integer.compare(k1.length, k2.length);
+	}
+
+	private static int worldTypeRank(final World world)
+	{
+		if (RuniteRocksPlugin.isDangerousWorld(world))
 		{
-			@Override
-			public void mousePressed(MouseEvent mouseEvent)
+			return 2;
+		}
+
+		return world.getTypes().contains(WorldType.MEMBERS) ? 0 : 1;
+	}
+
+	/**
+	 * Clicking sorts by the ordering alone, toggling the direction if it was already the only key.
+	 * Shift clicking adds it as the next key instead, or toggles its direction if it's already part of the chain.
+	 */
+	private void sortBy(final ListOrdering ordering, final boolean additive)
+	{
+		SortKey existing = null;
+		for (final SortKey sortKey : sortKeys)
+		{
+			if (sortKey.ordering == ordering)
 			{
-				if (SwingUtilities.isRightMouseButton(mouseEvent))
-				{
-					return;
-				}
-				ascendingOrder = sortOrder != ListOrdering.RESPAWN_TIME || !ascendingOrder;
-				orderBy(ListOrdering.RESPAWN_TIME);
+				existing = sortKey;
 			}
-		});
+		}
 
-		lastVisitHeader = new TableHeader("Last Visit", sortOrder == ListOrdering.LAST_VISITED, ascendingOrder, this::populate, plugin::clearRocks);
-		lastVisitHeader.addMouseListener(new MouseAdapter()
+		if (additive)
 		{
-			@Override
-			public void mousePressed(MouseEvent mouseEvent)
+			if (existing != null)
 			{
-				if (SwingUtilities.isRightMouseButton(mouseEvent))
-				{
-					return;
-				}
-				ascendingOrder = sortOrder != ListOrdering.LAST_VISITED || !ascendingOrder;
-				orderBy(ListOrdering.LAST_VISITED);
+				existing.ascending = !existing.ascending;
 			}
-		});
+			else if (sortKeys.size() < MAX_SORT_KEYS)
+			{
+				sortKeys.add(new SortKey(ordering, true));
+			}
+		}
+		else
+		{
+			final boolean ascending = existing == null || sortKeys.size() > 1 || !existing.ascending;
+			sortKeys.clear();
+			sortKeys.add(new SortKey(ordering, ascending));
+		}
+
+		updateHeaders();
+		updateList();
+	}
+
+	private void updateHeaders()
+	{
+		highlightHeader(worldHeader, ListOrdering.WORLD);
+		highlightHeader(locationHeader, ListOrdering.LOCATION);
+		highlightHeader(respawnHeader, ListOrdering.RESPAWN_TIME);
+		highlightHeader(lastVisitHeader, ListOrdering.LAST_VISITED);
+	}
+
+	private void highlightHeader(final TableHeader header, final ListOrdering ordering)
+	{
+		for (final SortKey sortKey : sortKeys)
+		{
+			if (sortKey.ordering == ordering)
+			{
+				header.highlight(true, sortKey.ascending);
+				return;
+			}
+		}
+
+		header.highlight(false, false);
+	}
+
+	private boolean isSortedBy(final ListOrdering ordering)
+	{
+		for (final SortKey sortKey : sortKeys)
+		{
+			if (sortKey.ordering == ordering)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Recalculates the expected value of rows whose rock changed or whose score is from an older time bucket
+	 */
+	private void updateSortScores(final ContentionStats contention, final long nowMillis)
+	{
+		final long now = plugin.getGameClock().now();
+		final long bucket = now / SCORE_BUCKET_TICKS;
+		for (final TableRow row : rows)
+		{
+			if (row.getSortScoreBucket() != bucket)
+			{
+				row.setSortScore(expectedValue(row.getRuniteRock(), now, contentionScore(contention, row, nowMillis)), bucket);
+			}
+		}
+	}
+
+	/**
+	 * The chance the rock can be mined when we get there divided by the minutes until it respawns
+	 */
+	static double expectedValue(final RuniteRock rock, final long now, final double contention)
+	{
+		double certainty;
+		if (rock.isAvailable())
+		{
+			// Someone may have mined it since we last saw it
+			certainty = Math.pow(0.5, (now - rock.getLastSeenTick()) / AVAILABLE_HALF_LIFE_TICKS);
+		}
+		else
+		{
+			certainty = rock.hasWitnessedDepletion() ? 1.0 : INACCURATE_CERTAINTY;
+		}
+
+		if (RuniteRocksPlugin.isDangerousWorld(rock.getWorld()))
+		{
+			certainty *= DANGEROUS_WORLD_PENALTY;
+		}
+		certainty /= 1 + contention + rock.getCompetitors();
+
+		final long waitTicks = Math.max(0, rock.getRespawnTick() - now);
+		return certainty / (1 + GameClock.ticksToMillis(waitTicks) / 60_000.0);
+	}
+
+	private static double contentionScore(final ContentionStats contention, final TableRow row, final long nowMillis)
+	{
+		final RuniteRock rock = row.getRuniteRock();
+		return contention.getScore(rock.getWorld().getId(), rock.getRock(), nowMillis);
+	}
+
+	private void exportHistory()
+	{
+		final JFileChooser fileChooser = new JFileChooser();
+		fileChooser.setDialogTitle("Export rock history (.csv or .json)");
+		fileChooser.setSelectedFile(new File("runite-rocks-history.csv"));
+		if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION)
+		{
+			plugin.exportHistory(fileChooser.getSelectedFile());
+		}
+	}
+
+	/**
+	 * Builds the entire table header.
+	 */
+	private JPanel buildHeader()
+	{
+		JPanel header = new JPanel(new DynamicGridLayout(0, 2));
+		JPanel leftSide = new JPanel(new BorderLayout());
+		JPanel rightSide = new JPanel(new BorderLayout());
+
+		worldHeader = new TableHeader("World", false, false, this::populate, plugin::clearRocks, this::exportHistory);
+		worldHeader.setPreferredSize(new Dimension(WORLD_COLUMN_WIDTH, HEADER_HEIGHT));
+		addSortListener(worldHeader, ListOrdering.WORLD);
+
+		locationHeader = new TableHeader("Loc", false, false, this::populate, plugin::clearRocks, this::exportHistory);
+		locationHeader.setPreferredSize(new Dimension(LOCATION_COLUMN_WIDTH, HEADER_HEIGHT));
+		addSortListener(locationHeader, ListOrdering.LOCATION);
+
+		respawnHeader = new TableHeader("Respawn", false, false, this::populate, plugin::clearRocks, this::exportHistory);
+		respawnHeader.setPreferredSize(new Dimension(TIME_COLUMN_WIDTH, HEADER_HEIGHT));
+		addSortListener(respawnHeader, ListOrdering.RESPAWN_TIME);
+
+		lastVisitHeader = new TableHeader("Last Visit", false, false, this::populate, plugin::clearRocks, this::exportHistory);
+		addSortListener(lastVisitHeader, ListOrdering.LAST_VISITED);
+
+		for (final TableHeader tableHeader : new TableHeader[]{worldHeader, locationHeader, respawnHeader, lastVisitHeader})
+		{
+			tableHeader.addSortMenuItem("Sort by expected value", additive -> sortBy(ListOrdering.EXPECTED_VALUE, additive));
+			tableHeader.addSortMenuItem("Sort by contention", additive -> sortBy(ListOrdering.CONTENTION, additive));
+			tableHeader.addSortMenuItem("Sort by world type", additive -> sortBy(ListOrdering.WORLD_TYPE, additive));
+			tableHeader.addMenuItem("Toggle timeline view", this::toggleTimeline);
+			tableHeader.addMenuItem("Toggle group by location", this::toggleGrouped);
+			tableHeader.addMenuItem("Reset session stats", this::resetSession);
+		}
+		updateHeaders();
 
 		leftSide.add(worldHeader, BorderLayout.WEST);
 		leftSide.add(locationHeader, BorderLayout.CENTER);
@@ -311,22 +844,83 @@ public class RuniteRocksPanel extends PluginPanel
 		return header;
 	}
 
+	private void addSortListener(final TableHeader header, final ListOrdering ordering)
+	{
+		header.addMouseListener(new MouseAdapter()
+		{
+			@Override
+			public void mousePressed(MouseEvent mouseEvent)
+			{
+				if (SwingUtilities.isRightMouseButton(mouseEvent))
+				{
+					return;
+				}
+				sortBy(ordering, mouseEvent.isShiftDown());
+			}
+		});
+	}
+
 	/**
-	 * Builds a table row, that displays the world's information.
+	 * Takes a row from the pool, or builds a new one if the pool is empty.
 	 */
-	private TableRow buildRow(World world, boolean current, RuniteRock rock)
+	private TableRow obtainRow()
 	{
-		TableRow row = new TableRow(world, rock, plugin::hopToWorld, plugin::removeRock, plugin.config.respawnCounter(), plugin.config.visitCounter(), plugin.config.doubleLeftClickToHop());
+		final TableRow row = rowPool.poll();
+		if (row != null)
+		{
+			return row;
+		}
+
+		return new TableRow(plugin::hopToWorld, plugin::removeRock);
+	}
+
+	private void releaseRow(final TableRow row)
+	{
+		if (rowPool.size() < MAX_POOLED_ROWS)
+		{
+			rowPool.push(row);
+		}
+	}
+
+	/**
+	 * Binds a table row to the rock, updating the row in place.
+	 */
+	private void bindRow(TableRow row, World world, boolean current, RuniteRock rock)
+	{
+		row.bind(world, rock, plugin.getConfigSnapshot());
 		row.setCurrent(current);
+		row.setWorldToolTip(plugin.getHopTelemetry().describe(world.getId()));
+		row.setLocationToolTip("<html>" + rock.getRock().getLocation() + "<br/>"
+			+ plugin.getContentionStats().describe(world.getId(), rock.getRock())
+			+ (rock.getCompetitors() > 0 ? "<br/>" + rock.getCompetitors() + " other players nearby when last seen" : "")
+			+ "</html>");
+	}
 
-		return row;
+	private static long rowKey(final int world, final Rock rock)
+	{
+		return ((long) world << 32) | rock.getId();
 	}
 
 	private enum ListOrdering
 	{
 		WORLD,
+		WORLD_TYPE,
 		LOCATION,
 		RESPAWN_TIME,
-		LAST_VISITED
+		LAST_VISITED,
+		CONTENTION,
+		EXPECTED_VALUE
+	}
+
+	private static class SortKey
+	{
+		private final ListOrdering ordering;
+		private boolean ascending;
+
+		private SortKey(final ListOrdering ordering, final boolean ascending)
+		{
+			this.ordering = ordering;
+			this.ascending = ascending;
+		}
 	}
 }
@@ -26,34 +26,35 @@ package thestonedturtle.runiterocks;
 
 import com.google.inject.Provides;
 import java.awt.image.BufferedImage;
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.swing.SwingUtilities;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.ChatMessageType;
 import net.runelite.api.Client;
-import net.runelite.api.GameObject;
 import net.runelite.api.GameState;
+import net.runelite.api.Player;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.api.events.ChatMessage;
 import net.runelite.api.events.GameObjectDespawned;
 import net.runelite.api.events.GameObjectSpawned;
 import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
-import net.runelite.api.widgets.ComponentID;
 import net.runelite.client.chat.ChatColorType;
 import net.runelite.client.chat.ChatMessageBuilder;
 import net.runelite.client.chat.ChatMessageManager;
 import net.runelite.client.chat.QueuedMessage;
 import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
 import net.runelite.client.game.WorldService;
@@ -61,10 +62,11 @@ import net.runelite.client.plugins.Plugin;
 import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
+import net.runelite.client.ui.overlay.OverlayManager;
 import net.runelite.client.util.ImageUtil;
-import net.runelite.client.util.WorldUtil;
 import net.runelite.http.api.worlds.World;
 import net.runelite.http.api.worlds.WorldResult;
+import net.runelite.http.api.worlds.WorldType;
 
 @Slf4j
 @PluginDescriptor(
@@ -72,7 +74,10 @@ import net.runelite.http.api.worlds.WorldResult;
 )
 public class RuniteRocksPlugin extends Plugin
 {
-	private static final int DISPLAY_SWITCHER_MAX_ATTEMPTS = 3;
+	private static final int EVENT_RING_CAPACITY = 4096;
+	private static final int NOT_SPAWNED = -1;
+	// How much later than predicted a rock is assumed to be available for each competitor seen around it
+	private static final int COMPETITOR_PENALTY_TICKS = 10;
 
 	@Inject
 	private ChatMessageManager chatMessageManager;
@@ -92,7 +97,59 @@ public class RuniteRocksPlugin extends Plugin
 	@Inject
 	private ScheduledExecutorService executorService;
 
-	private ScheduledFuture panelUpdateFuture;
+	@Inject
+	private OverlayManager overlayManager;
+
+	@Inject
+	private RuniteRocksOverlay overlay;
+
+	@Inject
+	private RuniteRocksTileOverlay tileOverlay;
+
+	@Inject
+	private QuickHopper quickHopper;
+
+	@Inject
+	@Getter(AccessLevel.PACKAGE)
+	private HopTelemetry hopTelemetry;
+
+	@Inject
+	private RockHistory rockHistory;
+
+	@Inject
+	@Getter(AccessLevel.PACKAGE)
+	private GameClock gameClock;
+
+	@Inject
+	private SceneProbe sceneProbe;
+
+	@Inject
+	private CompetitorDetector competitorDetector;
+
+	@Inject
+	private RockPushServer pushServer;
+
+	@Inject
+	private EventBus eventBus;
+
+	// Read-only snapshot of the tracked rocks for other plugins
+	@Inject
+	@Getter
+	private RockQueryService queryService;
+
+	@Inject
+	private AlertEngine alertEngine;
+
+	@Inject
+	@Getter(AccessLevel.PACKAGE)
+	private ContentionStats contentionStats;
+
+	@Inject
+	@Getter(AccessLevel.PACKAGE)
+	private SessionStats sessionStats;
+
+	@Getter
+	private volatile ConfigSnapshot configSnapshot;
 
 	@Provides
 	RuniteRocksConfig provideConfig(ConfigManager configManager)
@@ -100,9 +157,21 @@ public class RuniteRocksPlugin extends Plugin
 		return configManager.getConfig(RuniteRocksConfig.class);
 	}
 
-	// Rocks that were spawned and not despawned should have their last visited time updated when hopping or logging out
-	private final Map<WorldPoint, GameObject> spawnedRocks = new HashMap<>();
-	private final Map<WorldPoint, GameObject> queue = new HashMap<>();
+	// Object id of the rocks, indexed by rock id, that were spawned and not despawned in the current world.
+	// These should have their last visited time updated when hopping or logging out
+	private final int[] spawnedObjectIds = new int[ResourceCatalog.getInstance().size()];
+	private boolean anySpawned = false;
+	private final RockEventRing eventRing = new RockEventRing(EVENT_RING_CAPACITY);
+	@Getter
+	private final TickBudget eventBudget = new TickBudget(0);
+
+	// State for the drain in progress, kept in fields so the event consumer doesn't need to allocate
+	private final RockEventRing.Consumer eventConsumer = this::applyEvent;
+	private final Collection<RuniteRock> drainedRocks = new ArrayList<>();
+	private Rock drainedDepletedRock;
+	private boolean drainIgnoresBudget;
+	// Reused between probes so probing doesn't allocate unless a rock changed
+	private final Collection<RuniteRock> probeChanges = new ArrayList<>();
 	@Getter
 	private final Map<Integer, WorldTracker> worldMap = new HashMap<>();
 	@Getter
@@ -111,8 +180,11 @@ public class RuniteRocksPlugin extends Plugin
 	private NavigationButton navButton;
 	private RuniteRocksPanel panel;
 
-	private net.runelite.api.World quickHopTargetWorld;
-	private int displaySwitcherAttempts = 0;
+	// World the world switcher was last opened in preparation for an auto-hop
+	private int autoHopPreparedWorld = -1;
+
+	// Where the player was on the previous tick, to tell walking from waiting
+	private WorldPoint lastPlayerLocation;
 
 	// Game state will change to loading between hopping and LOGGED_IN
 	// We need to ignore this state as the game loads with all Runite rocks available
@@ -121,7 +193,16 @@ public class RuniteRocksPlugin extends Plugin
 	@Override
 	protected void startUp()
 	{
-		panel = new RuniteRocksPanel(this);
+		final long start = System.nanoTime();
+		configSnapshot = ConfigSnapshot.of(config);
+		eventBudget.setBudgetMicros(configSnapshot.getEventBudgetMicros());
+		clearSpawnedRocks();
+		hopTelemetry.load();
+		contentionStats.load();
+		rockHistory.start();
+		sessionStats.reset(System.currentTimeMillis());
+		// The panel contents are built when it's first opened, the icon is still needed for the navigation button
+		panel = new RuniteRocksPanel(this, executorService);
 
 		final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "icon.png");
 		navButton = NavigationButton.builder()
@@ -133,6 +214,11 @@ public class RuniteRocksPlugin extends Plugin
 
 		clientToolbar.addNavigation(navButton);
 
+		overlay.updateConfig();
+		tileOverlay.updateConfig();
+		overlayManager.add(overlay);
+		overlayManager.add(tileOverlay);
+
 		if (client.getGameState().equals(GameState.LOGGED_IN))
 		{
 			final World world = getWorld(client.getWorld());
@@ -141,56 +227,87 @@ public class RuniteRocksPlugin extends Plugin
 				log.warn("couldn't find world for id: {}", client.getWorld());
 				return;
 			}
-			tracker = new WorldTracker(world);
+			tracker = createTracker(world);
 			worldMap.put(client.getWorld(), tracker);
 		}
 
 		isHopping = client.getGameState().equals(GameState.HOPPING);
 
-		panelUpdateFuture = executorService.scheduleAtFixedRate(this::updatePanel, 1000, 500, TimeUnit.MILLISECONDS);
+		panel.setInGame(isInGame(client.getGameState()));
+		log.debug("Started in {}ms", (System.nanoTime() - start) / 1_000_000);
 	}
 
 	@Override
 	protected void shutDown()
 	{
-		if (panelUpdateFuture != null)
-		{
-			panelUpdateFuture.cancel(true);
-			panelUpdateFuture = null;
-		}
+		panel.shutDown();
 		clientToolbar.removeNavigation(navButton);
+		overlayManager.remove(overlay);
+		overlayManager.remove(tileOverlay);
 		panel = null;
-		queue.clear();
+		eventRing.clear();
 		worldMap.clear();
 		tracker = null;
-		spawnedRocks.clear();
+		clearSpawnedRocks();
 		isHopping = false;
+		quickHopper.clear();
+		autoHopPreparedWorld = -1;
+		hopTelemetry.save();
+		hopTelemetry.cancel();
+		contentionStats.save();
+		rockHistory.stop();
+		alertEngine.clear();
+		pushServer.stop();
+		queryService.clear();
 	}
 
 	@Subscribe
 	public void onGameStateChanged(GameStateChanged gameStateChanged)
 	{
+		panel.setInGame(isInGame(gameStateChanged.getGameState()));
+
 		switch (gameStateChanged.getGameState())
 		{
 			case LOADING:
-				spawnedRocks.clear();
+				clearSpawnedRocks();
+				// Scene has changed so the highlighted and probed tiles need to be recalculated
+				tileOverlay.invalidate();
+				sceneProbe.invalidate();
+				competitorDetector.invalidate();
 				if (isHopping)
 				{
 					return;
 				}
+				// Loading a new region after arriving means the rocks weren't in the scene we hopped in to
+				hopTelemetry.cancel();
 				break;
 			case HOPPING:
 				isHopping = true;
-				// intentional fall through
+				hopTelemetry.onHopStarted();
+				sessionStats.setActivity(SessionStats.Activity.HOPPING, System.currentTimeMillis());
+				processSpawnedRocks();
+				break;
 			case LOGIN_SCREEN:
+				hopTelemetry.cancel();
+				sessionStats.setActivity(null, System.currentTimeMillis());
 				processSpawnedRocks();
 				break;
 			case LOGGING_IN:
 			case CONNECTION_LOST:
-				spawnedRocks.clear();
+				clearSpawnedRocks();
 				return;
 			case LOGGED_IN:
+				// Only hops that reached another world count, queued hops can still be blocked or time out
+				if (isHopping && tracker != null && tracker.getWorld().getId() != client.getWorld())
+				{
+					sessionStats.onHop(System.currentTimeMillis());
+					panel.onSessionChanged();
+				}
 				isHopping = false;
+				quickHopper.onLoggedIn(client.getWorld());
+				hopTelemetry.onLoggedIn(client.getWorld());
+				hopTelemetry.save();
+				contentionStats.save();
 				break;
 			default:
 				return;
@@ -215,9 +332,10 @@ public class RuniteRocksPlugin extends Plugin
 			return;
 		}
 
-		tracker = worldMap.getOrDefault(currentWorld, new WorldTracker(world));
+		tracker = worldMap.getOrDefault(currentWorld, createTracker(world));
 		// Ensure it exists on the map since getOrDefault doesn't do that
 		worldMap.put(currentWorld, tracker);
+		invalidateOverlays();
 	}
 
 	@Subscribe
@@ -228,10 +346,9 @@ public class RuniteRocksPlugin extends Plugin
 			return;
 		}
 
-		final WorldPoint tileLocation = e.getTile().getWorldLocation();
-		if (Rock.getByWorldPoint(tileLocation) != null)
+		if (queueEvent(e.getTile().getWorldLocation(), e.getGameObject().getId()))
 		{
-			queue.put(tileLocation, e.getGameObject());
+			hopTelemetry.onRockEvent();
 		}
 	}
 
@@ -243,110 +360,373 @@ public class RuniteRocksPlugin extends Plugin
 			return;
 		}
 
-		final WorldPoint tileLocation = e.getTile().getWorldLocation();
-		if (Rock.getByWorldPoint(tileLocation) != null)
+		queueEvent(e.getTile().getWorldLocation(), e.getGameObject().getId());
+	}
+
+	/**
+	 * @return true if the location is a rock and the event was queued
+	 */
+	private boolean queueEvent(final WorldPoint location, final int objectId)
+	{
+		if (ResourceCatalog.getInstance().getByLocation(location.getX(), location.getY(), location.getPlane()) == null)
 		{
-			queue.put(tileLocation, e.getGameObject());
+			return false;
 		}
+
+		// The tracker isn't switched until logged in but the client is already on the new world while loading
+		final long key = RockEventRing.packKey(client.getWorld(), location.getX(), location.getY(), location.getPlane());
+		return eventRing.offer(key, objectId, gameClock.now());
 	}
 
 	@Subscribe
 	public void onGameTick(final GameTick tick)
 	{
-		// Quick hoping
-		if (quickHopTargetWorld != null)
+		gameClock.onGameTick(client.getTickCount());
+		updateSessionActivity();
+
+		final Rock depletedRock = drainQueue(false);
+
+		if (tracker != null && client.getGameState() == GameState.LOGGED_IN)
 		{
-			if (client.getWidget(ComponentID.WORLD_SWITCHER_WORLD_LIST) == null)
+			sceneProbe.probe(tracker, eventRing, gameClock.now(), probeChanges);
+			competitorDetector.detect(tracker, probeChanges);
+			if (!probeChanges.isEmpty())
 			{
-				client.openWorldHopper();
+				final Collection<RuniteRock> rocks = new ArrayList<>(probeChanges);
+				probeChanges.clear();
+				// Competitor counts change without a transition
+				rocks.forEach(queryService::onRockChanged);
+				invalidateOverlays();
+				SwingUtilities.invokeLater(() -> panel.updateRuniteRocks(rocks));
+			}
+		}
 
-				if (++displaySwitcherAttempts >= DISPLAY_SWITCHER_MAX_ATTEMPTS)
-				{
-					String chatMessage = new ChatMessageBuilder()
-						.append(ChatColorType.NORMAL)
-						.append("Failed to hop after ")
-						.append(ChatColorType.HIGHLIGHT)
-						.append(Integer.toString(displaySwitcherAttempts))
-						.append(ChatColorType.NORMAL)
-						.append(" attempts.")
-						.build();
-
-					chatMessageManager
-						.queue(QueuedMessage.builder()
-							.type(ChatMessageType.CONSOLE)
-							.runeLiteFormattedMessage(chatMessage)
-							.build());
-
-					resetQuickHopper();
-				}
+		if (configSnapshot.isAutoHop() && tracker != null)
+		{
+			handleAutoHop(depletedRock);
+		}
+
+		alertEngine.onGameTick(configSnapshot.getAlertRules(), worldMap.values());
+		final RocksChanged changed = queryService.publish();
+		pushServer.update(configSnapshot.isPushServer(), configSnapshot.getPushServerPort(), queryService.getRocks());
+		if (changed != null)
+		{
+			eventBus.post(changed);
+			pushServer.publish(changed);
+		}
+		quickHopper.onGameTick();
+	}
+
+	/**
+	 * Counts the tick towards hopping while a hop is queued, otherwise walking or waiting depending on if the player moved
+	 */
+	private void updateSessionActivity()
+	{
+		final Player player = client.getLocalPlayer();
+		final WorldPoint location = player == null ? null : player.getWorldLocation();
+
+		final SessionStats.Activity activity;
+		if (!quickHopper.isIdle())
+		{
+			activity = SessionStats.Activity.HOPPING;
+		}
+		else if (location != null && !location.equals(lastPlayerLocation))
+		{
+			activity = SessionStats.Activity.WALKING;
+		}
+		else
+		{
+			activity = SessionStats.Activity.WAITING;
+		}
+
+		lastPlayerLocation = location;
+		sessionStats.setActivity(activity, System.currentTimeMillis());
+	}
+
+	/**
+	 * Applies the queued rock events, stopping once the per tick budget is used up unless {@code ignoreBudget} is set.
+	 * Events that don't fit in the budget stay queued, in order, for the next tick.
+	 *
+	 * @return the last rock in the current world that was seen being depleted, if any
+	 */
+	@Nullable
+	private Rock drainQueue(final boolean ignoreBudget)
+	{
+		if (eventRing.isEmpty())
+		{
+			return null;
+		}
+
+		drainedDepletedRock = null;
+		drainIgnoresBudget = ignoreBudget;
+		eventBudget.start();
+		eventRing.drain(eventConsumer);
+
+		final long dropped = eventRing.takeDropped();
+		if (dropped > 0)
+		{
+			log.warn("Dropped {} rock events as the event buffer was full", dropped);
+		}
+
+		if (!eventRing.isEmpty())
+		{
+			eventBudget.recordOverrun(eventRing.size());
+			log.debug("Rock event budget exceeded, carrying {} events over to the next tick ({} overruns, max carried {})",
+				eventRing.size(), eventBudget.getOverrunTicks(), eventBudget.getMaxCarriedOver());
+		}
+
+		if (!drainedRocks.isEmpty())
+		{
+			final Collection<RuniteRock> rocks = new ArrayList<>(drainedRocks);
+			drainedRocks.clear();
+			invalidateOverlays();
+			SwingUtilities.invokeLater(() -> panel.updateRuniteRocks(rocks));
+		}
+
+		return drainedDepletedRock;
+	}
+
+	/**
+	 * Applies a single event from the ring buffer
+	 *
+	 * @return false once the event budget is used up
+	 */
+	private boolean applyEvent(final long key, final int objectId, final long tick)
+	{
+		final WorldTracker eventTracker = worldMap.get(RockEventRing.unpackWorld(key));
+		final Rock type = ResourceCatalog.getInstance().getByPackedLocation(RockEventRing.unpackLocation(key));
+		if (eventTracker == null || type == null)
+		{
+			log.debug("Dropping rock event for untracked world: {}", RockEventRing.unpackWorld(key));
+			return true;
+		}
+
+		final RuniteRock previous = eventTracker.getRuniteRock(type);
+		final boolean wasAvailable = previous != null && previous.isAvailable();
+
+		final RuniteRock rock = eventTracker.updateRockState(type, objectId, tick);
+		drainedRocks.add(rock);
+
+		if (eventTracker == tracker)
+		{
+			spawnedObjectIds[type.getId()] = objectId;
+			anySpawned = true;
+			if (wasAvailable && !rock.isAvailable())
+			{
+				drainedDepletedRock = type;
 			}
-			else
+		}
+
+		return drainIgnoresBudget || !eventBudget.isExhausted();
+	}
+
+	/**
+	 * Queues a hop to the next predicted rock once every rock at the depleted rocks location is gone.
+	 * While a rock is still available the world switcher is opened ahead of time so the hop doesn't lose a tick.
+	 */
+	private void handleAutoHop(@Nullable final Rock depletedRock)
+	{
+		if (!quickHopper.isIdle())
+		{
+			return;
+		}
+
+		if (depletedRock != null)
+		{
+			if (isLocationAvailable(depletedRock.getLocation()))
 			{
-				client.hopToWorld(quickHopTargetWorld);
-				resetQuickHopper();
+				return;
 			}
+
+			final World world = findNextAvailableWorld(depletedRock.getLocation());
+			if (world != null)
+			{
+				hopToWorld(world);
+			}
+			return;
+		}
+
+		// Only prepare once per world so closing the world switcher isn't fought against
+		final int currentWorld = tracker.getWorld().getId();
+		if (autoHopPreparedWorld == currentWorld)
+		{
+			return;
 		}
 
-		if (tracker != null && !queue.isEmpty())
+		for (final RuniteRock rock : tracker.getRuniteRocks())
+		{
+			if (rock.isAvailable() && spawnedObjectIds[rock.getRock().getId()] != NOT_SPAWNED
+				&& findNextAvailableWorld(rock.getRock().getLocation()) != null)
+			{
+				quickHopper.prepare();
+				autoHopPreparedWorld = currentWorld;
+				return;
+			}
+		}
+	}
+
+	private boolean isLocationAvailable(final String location)
+	{
+		for (final RuniteRock rock : tracker.getRuniteRocks())
+		{
+			if (rock.isAvailable() && rock.getRock().getLocation().equals(location))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * Finds the world, other than the current one, where a rock at the given location is predicted to be available soonest.
+	 * Only accurate timers are considered and dangerous worlds are skipped unless the current world is also dangerous.
+	 * Worlds that are slow to hop to are deprioritised by the time it usually takes to see their rocks,
+	 * and rocks that had other players around them the last time we were there are pushed back for each player.
+	 */
+	@Nullable
+	World findNextAvailableWorld(final String location)
+	{
+		final boolean allowDangerous = isDangerousWorld(tracker.getWorld());
+		final long now = gameClock.now();
+		World bestWorld = null;
+		long bestRespawn = Long.MAX_VALUE;
+		for (final WorldTracker worldTracker : worldMap.values())
 		{
-			final Collection<RuniteRock> rocks = new ArrayList<>();
-			for (final Map.Entry<WorldPoint, GameObject> entry : queue.entrySet())
+			final World world = worldTracker.getWorld();
+			if (worldTracker == tracker || (!allowDangerous && isDangerousWorld(world)))
 			{
-				final RuniteRock rock = tracker.updateRockState(entry.getKey(), entry.getValue());
-				if (rock == null)
+				continue;
+			}
+
+			final long scoutMillis = Math.max(0, hopTelemetry.getExpectedScoutMillis(world.getId()));
+			final long arrival = now + GameClock.millisToTicks(scoutMillis);
+			for (final RuniteRock rock : worldTracker.getRuniteRocks())
+			{
+				if (!rock.getRock().getLocation().equals(location) || !(rock.hasWitnessedDepletion() || rock.isAvailable()))
 				{
-					log.warn("Error updating rock state: {} | {}", entry.getKey(), entry.getValue());
 					continue;
 				}
-				rocks.add(rock);
-				spawnedRocks.put(entry.getKey(), entry.getValue());
-			}
 
-			queue.clear();
-			SwingUtilities.invokeLater(() -> panel.updateRuniteRocks(rocks));
+				final long respawn = Math.max(rock.getRespawnTick(), arrival) + (long) rock.getCompetitors() * COMPETITOR_PENALTY_TICKS;
+				if (respawn < bestRespawn)
+				{
+					bestWorld = world;
+					bestRespawn = respawn;
+				}
+			}
 		}
+
+		return bestWorld;
+	}
+
+	/**
+	 * Loading and hopping are included so the panel doesn't stop refreshing between scenes
+	 */
+	private static boolean isInGame(final GameState gameState)
+	{
+		return gameState == GameState.LOGGED_IN || gameState == GameState.LOADING || gameState == GameState.HOPPING;
+	}
+
+	static boolean isDangerousWorld(final World world)
+	{
+		return world.getTypes().contains(WorldType.PVP)
+			|| world.getTypes().contains(WorldType.HIGH_RISK)
+			|| world.getTypes().contains(WorldType.DEADMAN);
 	}
 
 	@Subscribe
 	public void onConfigChanged(final ConfigChanged e)
 	{
-		if (!e.getGroup().equals(config.GROUP))
+		if (!e.getGroup().equals(config.GROUP) || e.getKey().equals(HopTelemetry.CONFIG_KEY)
+			|| e.getKey().equals(ContentionStats.CONFIG_KEY))
 		{
 			return;
 		}
 
-		SwingUtilities.invokeLater(panel::populate);
+		configSnapshot = ConfigSnapshot.of(config);
+		eventBudget.setBudgetMicros(configSnapshot.getEventBudgetMicros());
+
+		// Apply only what the changed option affects, the rows are never rebuilt for a config change
+		switch (e.getKey())
+		{
+			case "respawnCounter":
+			case "visitCounter":
+			case "doubleClickToHop":
+				SwingUtilities.invokeLater(panel::updateDisplayOptions);
+				break;
+			case "ignoreInaccurate":
+				overlay.updateConfig();
+				// intentional fall through
+			case "accurateRespawnPriority":
+			case "maxContention":
+				SwingUtilities.invokeLater(panel::updateList);
+				break;
+			case "showOverlay":
+			case "overlayRockCount":
+				overlay.updateConfig();
+				break;
+			case "highlightRockTiles":
+				tileOverlay.updateConfig();
+				break;
+			case "autoHop":
+			case "recordHistory":
+			case "eventBudgetMicros":
+			case "alertRules":
+			case "pushServer":
+			case "pushServerPort":
+				// Read when needed
+				break;
+			default:
+				overlay.updateConfig();
+				tileOverlay.updateConfig();
+				SwingUtilities.invokeLater(panel::populate);
+		}
 	}
 
 	private void processSpawnedRocks()
 	{
-		if (spawnedRocks.isEmpty())
+		// Events still queued from the previous ticks are older than the rocks last visited time
+		drainQueue(true);
+
+		if (!anySpawned)
 		{
 			return;
 		}
 
 		final Collection<RuniteRock> rocks = new ArrayList<>();
-		for (final Map.Entry<WorldPoint, GameObject> entry : spawnedRocks.entrySet())
+		final long now = gameClock.now();
+		final ResourceCatalog catalog = ResourceCatalog.getInstance();
+		for (int id = 0; id < spawnedObjectIds.length; id++)
 		{
-			final RuniteRock rock = tracker.updateRockState(entry.getKey(), entry.getValue());
-			if (rock == null)
+			if (spawnedObjectIds[id] != NOT_SPAWNED)
 			{
-				log.warn("Error updating spawned rock state: {} | {}", entry.getKey(), entry.getValue());
-				continue;
+				rocks.add(tracker.updateRockState(catalog.getRocks().get(id), spawnedObjectIds[id], now));
 			}
-			rocks.add(rock);
 		}
 
-		spawnedRocks.clear();
+		clearSpawnedRocks();
+		invalidateOverlays();
 		SwingUtilities.invokeLater(() -> panel.updateRuniteRocks(rocks));
 	}
 
 	@Subscribe
 	public void onChatMessage(final ChatMessage event)
 	{
+		// Players can type the same text, only messages from the game count
+		if (event.getType() != ChatMessageType.GAMEMESSAGE && event.getType() != ChatMessageType.SPAM)
+		{
+			return;
+		}
+
 		if (event.getMessage().equals("Please finish what you're doing before using the World Switcher."))
 		{
-			resetQuickHopper();
+			quickHopper.onHopBlocked();
+		}
+		else if (event.getMessage().equals(SessionStats.MINED_MESSAGE))
+		{
+			sessionStats.onOreMined(System.currentTimeMillis());
+			panel.onSessionChanged();
 		}
 	}
 
@@ -401,38 +781,7 @@ public class RuniteRocksPlugin extends Plugin
 				.runeLiteFormattedMessage(chatMessage)
 				.build());
 
-		quickHopTargetWorld = toRsWorld(world);
-		client.changeWorld(quickHopTargetWorld);
-		displaySwitcherAttempts = 0;
-	}
-
-	private net.runelite.api.World toRsWorld(final World world)
-	{
-		final net.runelite.api.World rsWorld = client.createWorld();
-		rsWorld.setActivity(world.getActivity());
-		rsWorld.setAddress(world.getAddress());
-		rsWorld.setId(world.getId());
-		rsWorld.setPlayerCount(world.getPlayers());
-		rsWorld.setLocation(world.getLocation());
-		rsWorld.setTypes(WorldUtil.toWorldTypes(world.getTypes()));
-
-		return rsWorld;
-	}
-
-	private void resetQuickHopper()
-	{
-		displaySwitcherAttempts = 0;
-		quickHopTargetWorld = null;
-	}
-
-	private void updatePanel()
-	{
-		if (tracker == null || panel.getRows().isEmpty())
-		{
-			return;
-		}
-
-		SwingUtilities.invokeLater(panel::updateList);
+		quickHopper.queue(world);
 	}
 
 	void removeRock(final int world, final Rock rock)
@@ -444,6 +793,9 @@ public class RuniteRocksPlugin extends Plugin
 		}
 
 		track.removeRock(rock);
+		alertEngine.onRockRemoved(world, rock);
+		queryService.onRockRemoved(world, rock);
+		invalidateOverlays();
 		SwingUtilities.invokeLater(panel::populate);
 	}
 
@@ -452,6 +804,59 @@ public class RuniteRocksPlugin extends Plugin
 		worldMap.clear();
 		tracker.clear();
 		worldMap.put(client.getWorld(), tracker);
+		// Recompiled against the remaining rocks on the next tick
+		alertEngine.clear();
+		queryService.reset(worldMap.values());
+		invalidateOverlays();
 		SwingUtilities.invokeLater(panel::populate);
 	}
+
+	void exportHistory(final File destination)
+	{
+		rockHistory.export(destination, () ->
+		{
+			final String chatMessage = new ChatMessageBuilder()
+				.append(ChatColorType.NORMAL)
+				.append("Exported rock history to ")
+				.append(ChatColorType.HIGHLIGHT)
+				.append(destination.getName())
+				.build();
+
+			chatMessageManager
+				.queue(QueuedMessage.builder()
+					.type(ChatMessageType.CONSOLE)
+					.runeLiteFormattedMessage(chatMessage)
+					.build());
+		});
+	}
+
+	private WorldTracker createTracker(final World world)
+	{
+		return new WorldTracker(world, gameClock, this::onRockTransition);
+	}
+
+	private void clearSpawnedRocks()
+	{
+		Arrays.fill(spawnedObjectIds, NOT_SPAWNED);
+		anySpawned = false;
+	}
+
+	private void onRockTransition(final RuniteRock rock, final RockState previousState, final long previousUpdatedTick)
+	{
+		contentionStats.onTransition(rock, previousState, previousUpdatedTick);
+
+		if (configSnapshot.isRecordHistory())
+		{
+			rockHistory.record(rock, previousState);
+		}
+
+		alertEngine.onRockChanged(rock);
+		queryService.onRockChanged(rock);
+	}
+
+	private void invalidateOverlays()
+	{
+		overlay.invalidate();
+		tileOverlay.invalidate();
+	}
 }
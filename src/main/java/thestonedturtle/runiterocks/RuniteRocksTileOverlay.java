@@ -0,0 +1,273 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Polygon;
+import java.awt.Stroke;
+import javax.inject.Inject;
+import net.runelite.api.Client;
+import net.runelite.api.Perspective;
+import net.runelite.api.Point;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.client.ui.FontManager;
+import net.runelite.client.ui.overlay.Overlay;
+import net.runelite.client.ui.overlay.OverlayLayer;
+import net.runelite.client.ui.overlay.OverlayPosition;
+
+/**
+ * Highlights the tracked rocks of the current world that are inside the loaded scene and draws their countdown.
+ * <p>
+ * The local points are resolved when the tracker changes or a new region loads, the canvas polygons are only
+ * recomputed when the camera moves and the countdown text is reformatted once per second.
+ */
+class RuniteRocksTileOverlay extends Overlay
+{
+	private static final int MAX_TILES = ResourceCatalog.getInstance().size();
+	private static final Color AVAILABLE_COLOR = new Color(113, 160, 167);
+	private static final Color ACCURATE_COLOR = Color.LIGHT_GRAY;
+	private static final Color INACCURATE_COLOR = new Color(255, 152, 31);
+	private static final Color FILL_COLOR = new Color(0, 0, 0, 50);
+	private static final Stroke STROKE = new BasicStroke(2);
+	private static final int TEXT_Z_OFFSET = 40;
+
+	private final Client client;
+	private final RuniteRocksPlugin plugin;
+
+	private final RuniteRock[] rocks = new RuniteRock[MAX_TILES];
+	private final LocalPoint[] localPoints = new LocalPoint[MAX_TILES];
+	private final int[] planes = new int[MAX_TILES];
+	private final Polygon[] polygons = new Polygon[MAX_TILES];
+	private final Point[] textPoints = new Point[MAX_TILES];
+	private final String[] timerText = new String[MAX_TILES];
+	private final int[] timerWidth = new int[MAX_TILES];
+	private int count = 0;
+
+	private boolean enabled;
+	private boolean dirty = true;
+	private long lastRefreshSecond = -1;
+
+	// Camera state the cached polygons were projected with
+	private int cameraX;
+	private int cameraY;
+	private int cameraZ;
+	private int cameraPitch;
+	private int cameraYaw;
+	private int viewportWidth;
+	private int viewportHeight;
+	private int scale;
+
+	@Inject
+	private RuniteRocksTileOverlay(final Client client, final RuniteRocksPlugin plugin)
+	{
+		this.client = client;
+		this.plugin = plugin;
+		setPosition(OverlayPosition.DYNAMIC);
+		setLayer(OverlayLayer.ABOVE_SCENE);
+	}
+
+	void updateConfig()
+	{
+		enabled = plugin.getConfigSnapshot().isHighlightRockTiles();
+		invalidate();
+	}
+
+	/**
+	 * Marks the cached tiles as stale, should be called when the tracker changes or a new scene is loaded
+	 */
+	void invalidate()
+	{
+		dirty = true;
+	}
+
+	@Override
+	public Dimension render(Graphics2D graphics)
+	{
+		if (!enabled)
+		{
+			return null;
+		}
+
+		if (dirty)
+		{
+			rebuild();
+		}
+
+		if (count == 0)
+		{
+			return null;
+		}
+
+		graphics.setFont(FontManager.getRunescapeSmallFont());
+		final long nowMillis = plugin.getGameClock().currentEpochMillis();
+		final long second = nowMillis / 1000;
+		if (second != lastRefreshSecond)
+		{
+			refreshTimers(nowMillis, graphics.getFontMetrics());
+			lastRefreshSecond = second;
+		}
+
+		if (cameraMoved())
+		{
+			project();
+		}
+
+		final Stroke originalStroke = graphics.getStroke();
+		for (int i = 0; i < count; i++)
+		{
+			final Polygon poly = polygons[i];
+			if (poly == null)
+			{
+				continue;
+			}
+
+			final Color color = getColor(rocks[i]);
+			graphics.setColor(color);
+			graphics.setStroke(STROKE);
+			graphics.draw(poly);
+			graphics.setColor(FILL_COLOR);
+			graphics.fill(poly);
+
+			final Point textPoint = textPoints[i];
+			if (timerText[i] == null || textPoint == null)
+			{
+				continue;
+			}
+
+			final int x = textPoint.getX() - timerWidth[i] / 2;
+			graphics.setColor(Color.BLACK);
+			graphics.drawString(timerText[i], x + 1, textPoint.getY() + 1);
+			graphics.setColor(color);
+			graphics.drawString(timerText[i], x, textPoint.getY());
+		}
+		graphics.setStroke(originalStroke);
+
+		return null;
+	}
+
+	private void rebuild()
+	{
+		count = 0;
+		final WorldTracker tracker = plugin.getTracker();
+		if (tracker != null)
+		{
+			for (final RuniteRock rock : tracker.getRuniteRocks())
+			{
+				final WorldPoint worldPoint = rock.getRock().getWorldPoint();
+				if (worldPoint.getPlane() != client.getPlane())
+				{
+					continue;
+				}
+
+				final LocalPoint localPoint = LocalPoint.fromWorld(client, worldPoint);
+				if (localPoint == null)
+				{
+					continue;
+				}
+
+				rocks[count] = rock;
+				localPoints[count] = localPoint;
+				planes[count] = worldPoint.getPlane();
+				count++;
+			}
+		}
+
+		for (int i = count; i < MAX_TILES; i++)
+		{
+			rocks[i] = null;
+			localPoints[i] = null;
+			polygons[i] = null;
+			textPoints[i] = null;
+		}
+
+		dirty = false;
+		lastRefreshSecond = -1;
+		// Force the new tiles to be projected
+		viewportWidth = -1;
+	}
+
+	private void refreshTimers(final long nowMillis, final FontMetrics metrics)
+	{
+		for (int i = 0; i < count; i++)
+		{
+			final RuniteRock rock = rocks[i];
+			final long remaining = plugin.getGameClock().toEpochMillis(rock.getRespawnTick()) - nowMillis;
+			if (rock.isAvailable() || remaining <= 0)
+			{
+				timerText[i] = null;
+				continue;
+			}
+
+			final long seconds = (remaining + 999) / 1000;
+			timerText[i] = String.format("%d:%02d", seconds / 60, seconds % 60);
+			timerWidth[i] = metrics.stringWidth(timerText[i]);
+		}
+	}
+
+	private boolean cameraMoved()
+	{
+		return cameraX != client.getCameraX()
+			|| cameraY != client.getCameraY()
+			|| cameraZ != client.getCameraZ()
+			|| cameraPitch != client.getCameraPitch()
+			|| cameraYaw != client.getCameraYaw()
+			|| viewportWidth != client.getViewportWidth()
+			|| viewportHeight != client.getViewportHeight()
+			|| scale != client.getScale();
+	}
+
+	private void project()
+	{
+		cameraX = client.getCameraX();
+		cameraY = client.getCameraY();
+		cameraZ = client.getCameraZ();
+		cameraPitch = client.getCameraPitch();
+		cameraYaw = client.getCameraYaw();
+		viewportWidth = client.getViewportWidth();
+		viewportHeight = client.getViewportHeight();
+		scale = client.getScale();
+
+		for (int i = 0; i < count; i++)
+		{
+			polygons[i] = Perspective.getCanvasTilePoly(client, localPoints[i]);
+			textPoints[i] = Perspective.localToCanvas(client, localPoints[i], planes[i], TEXT_Z_OFFSET);
+		}
+	}
+
+	private static Color getColor(final RuniteRock rock)
+	{
+		if (rock.isAvailable())
+		{
+			return AVAILABLE_COLOR;
+		}
+
+		return rock.hasWitnessedDepletion() ? ACCURATE_COLOR : INACCURATE_COLOR;
+	}
+}
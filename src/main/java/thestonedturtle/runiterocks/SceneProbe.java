@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Collection;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import net.runelite.api.Client;
+import net.runelite.api.GameObject;
+import net.runelite.api.Scene;
+import net.runelite.api.Tile;
+import net.runelite.api.coords.LocalPoint;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Periodically reads the tiles of the rocks inside the loaded scene to refresh their state without waiting on
+ * spawn/despawn events. Only the known rock tiles are read, their scene coordinates are calculated once per region.
+ */
+@Singleton
+class SceneProbe
+{
+	static final int PROBE_INTERVAL_TICKS = 5;
+	// How often rocks that were only seen again, without changing state, are reported so the last visit stays current
+	static final int SEEN_REPORT_INTERVAL_TICKS = 20;
+	private static final int MAX_ROCKS = ResourceCatalog.getInstance().size();
+
+	private final Client client;
+
+	private final Rock[] rocks = new Rock[MAX_ROCKS];
+	private final int[] sceneX = new int[MAX_ROCKS];
+	private final int[] sceneY = new int[MAX_ROCKS];
+	private final int[] planes = new int[MAX_ROCKS];
+	private int count = 0;
+
+	private boolean stale = true;
+	private int ticksUntilProbe = 0;
+	private int ticksUntilSeenReport = 0;
+
+	@Inject
+	private SceneProbe(final Client client)
+	{
+		this.client = client;
+	}
+
+	/**
+	 * Should be called whenever a new scene is loaded
+	 */
+	void invalidate()
+	{
+		stale = true;
+		ticksUntilProbe = 0;
+	}
+
+	/**
+	 * Probes the rock tiles every {@link #PROBE_INTERVAL_TICKS} ticks. Rocks with queued events are skipped, those
+	 * events are older than the probe and would otherwise be applied after it.
+	 *
+	 * @param changed rocks whose state changed are added to this collection, rocks whose last seen time changed are only
+	 *                added every {@link #SEEN_REPORT_INTERVAL_TICKS} ticks
+	 */
+	void probe(final WorldTracker tracker, final RockEventRing events, final long tick, final Collection<RuniteRock> changed)
+	{
+		if (--ticksUntilProbe > 0)
+		{
+			return;
+		}
+		ticksUntilProbe = PROBE_INTERVAL_TICKS;
+
+		ticksUntilSeenReport -= PROBE_INTERVAL_TICKS;
+		final boolean reportSeen = ticksUntilSeenReport <= 0;
+		if (reportSeen)
+		{
+			ticksUntilSeenReport = SEEN_REPORT_INTERVAL_TICKS;
+		}
+
+		if (stale)
+		{
+			locateRocks();
+		}
+
+		if (count == 0)
+		{
+			return;
+		}
+
+		final Tile[][][] tiles = client.getScene().getTiles();
+		final int world = tracker.getWorld().getId();
+		final boolean eventsPending = !events.isEmpty();
+		for (int i = 0; i < count; i++)
+		{
+			final Rock rock = rocks[i];
+			final WorldPoint point = rock.getWorldPoint();
+			if (eventsPending && events.hasPending(RockEventRing.packKey(world, point.getX(), point.getY(), point.getPlane())))
+			{
+				continue;
+			}
+
+			final Tile tile = tiles[planes[i]][sceneX[i]][sceneY[i]];
+			final int objectId = tile == null ? -1 : findRockObject(tile, rock);
+			if (objectId == -1)
+			{
+				continue;
+			}
+
+			final RuniteRock existing = tracker.getRuniteRock(rock);
+			final boolean wasAvailable = existing != null && existing.isAvailable();
+			final long previousUpdate = existing == null ? -1 : existing.getUpdatedTick();
+
+			final RuniteRock runiteRock = tracker.updateRockState(rock, objectId, tick);
+			if (reportSeen || existing == null || wasAvailable != runiteRock.isAvailable() || previousUpdate != runiteRock.getUpdatedTick())
+			{
+				changed.add(runiteRock);
+			}
+		}
+	}
+
+	private void locateRocks()
+	{
+		count = 0;
+		final Scene scene = client.getScene();
+		final ResourceCatalog catalog = ResourceCatalog.getInstance();
+		final int[] regions = client.getMapRegions();
+		if (regions == null)
+		{
+			return;
+		}
+
+		for (final int region : regions)
+		{
+			for (final Rock rock : catalog.getByRegion(region))
+			{
+				if (rock.getWorldPoint().getPlane() >= scene.getTiles().length)
+				{
+					continue;
+				}
+
+				final LocalPoint localPoint = LocalPoint.fromWorld(client, rock.getWorldPoint());
+				if (localPoint == null)
+				{
+					continue;
+				}
+
+				rocks[count] = rock;
+				sceneX[count] = localPoint.getSceneX();
+				sceneY[count] = localPoint.getSceneY();
+				planes[count] = rock.getWorldPoint().getPlane();
+				count++;
+			}
+		}
+
+		stale = false;
+	}
+
+	private static int findRockObject(final Tile tile, final Rock rock)
+	{
+		for (final GameObject gameObject : tile.getGameObjects())
+		{
+			if (gameObject == null)
+			{
+				continue;
+			}
+
+			final int id = gameObject.getId();
+			if (id == rock.getActivateState() || id == rock.getDepletedState())
+			{
+				return id;
+			}
+		}
+
+		return -1;
+	}
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+/**
+ * Measures the throughput of the current session: runite mined, hops made through the plugin and how the logged in
+ * time was split between walking, hopping and waiting at rocks.
+ * <p>
+ * Every event is an O(1) counter update. Ore and hops are also counted per minute in fixed size rings covering the
+ * last {@link #HISTORY_MINUTES} minutes, so the rolling rates never need to look at the whole session.
+ */
+@Singleton
+class SessionStats
+{
+	static final String MINED_MESSAGE = "You manage to mine some runite.";
+	static final int HISTORY_MINUTES = 60;
+	private static final long MINUTE_MILLIS = 60_000;
+	private static final long HOUR_MILLIS = 3_600_000;
+	// Rates from less than a minute of data are too noisy to show
+	private static final long MIN_RATE_MILLIS = MINUTE_MILLIS;
+
+	enum Activity
+	{
+		WALKING,
+		HOPPING,
+		WAITING
+	}
+
+	private final int[] oreHistory = new int[HISTORY_MINUTES];
+	private final int[] hopHistory = new int[HISTORY_MINUTES];
+	private final long[] activityMillis = new long[Activity.values().length];
+
+	private long startMillis;
+	// Minute since the start of the session the newest ring entry is for
+	private long currentMinute;
+	private int windowOre;
+	private int windowHops;
+	private int totalOre;
+	private int totalHops;
+
+	// Activity being timed and when it started, or null while logged out
+	@Nullable
+	private Activity activity;
+	private long activitySinceMillis;
+
+	@Inject
+	SessionStats()
+	{
+		reset(System.currentTimeMillis());
+	}
+
+	synchronized void reset(final long nowMillis)
+	{
+		for (int i = 0; i < HISTORY_MINUTES; i++)
+		{
+			oreHistory[i] = 0;
+			hopHistory[i] = 0;
+		}
+		for (int i = 0; i < activityMillis.length; i++)
+		{
+			activityMillis[i] = 0;
+		}
+
+		startMillis = nowMillis;
+		currentMinute = 0;
+		windowOre = 0;
+		windowHops = 0;
+		totalOre = 0;
+		totalHops = 0;
+		activity = null;
+		activitySinceMillis = nowMillis;
+	}
+
+	synchronized void onOreMined(final long nowMillis)
+	{
+		advance(nowMillis);
+		oreHistory[(int) (currentMinute % HISTORY_MINUTES)]++;
+		windowOre++;
+		totalOre++;
+	}
+
+	synchronized void onHop(final long nowMillis)
+	{
+		advance(nowMillis);
+		hopHistory[(int) (currentMinute % HISTORY_MINUTES)]++;
+		windowHops++;
+		totalHops++;
+	}
+
+	/**
+	 * Switches the activity the time is counted towards, null pauses the timing e.g. on the login screen
+	 */
+	synchronized void setActivity(@Nullable final Activity activity, final long nowMillis)
+	{
+		if (activity == this.activity)
+		{
+			return;
+		}
+
+		accrue(nowMillis);
+		this.activity = activity;
+	}
+
+	/**
+	 * @return ore per hour over the last {@link #HISTORY_MINUTES} minutes, or -1 if the session is too short
+	 */
+	synchronized double getOrePerHour(final long nowMillis)
+	{
+		advance(nowMillis);
+		final long windowMillis = getWindowMillis(nowMillis);
+		if (windowMillis < MIN_RATE_MILLIS)
+		{
+			return -1;
+		}
+
+		return windowOre * (double) HOUR_MILLIS / windowMillis;
+	}
+
+	/**
+	 * @return hops per ore over the last {@link #HISTORY_MINUTES} minutes, or -1 if no ore has been mined
+	 */
+	synchronized double getHopsPerOre(final long nowMillis)
+	{
+		advance(nowMillis);
+		return windowOre == 0 ? -1 : windowHops / (double) windowOre;
+	}
+
+	/**
+	 * @return share of the timed session spent on the activity, between 0 and 1
+	 */
+	synchronized double getActivityShare(final Activity activity, final long nowMillis)
+	{
+		accrue(nowMillis);
+		long total = 0;
+		for (final long millis : activityMillis)
+		{
+			total += millis;
+		}
+
+		return total == 0 ? 0 : activityMillis[activity.ordinal()] / (double) total;
+	}
+
+	/**
+	 * @return true while an activity is being timed, so the shares and rates change with time
+	 */
+	synchronized boolean isTiming()
+	{
+		return activity != null;
+	}
+
+	synchronized int getTotalOre()
+	{
+		return totalOre;
+	}
+
+	synchronized int getTotalHops()
+	{
+		return totalHops;
+	}
+
+	synchronized long getSessionMillis(final long nowMillis)
+	{
+		return nowMillis - startMillis;
+	}
+
+	/**
+	 * Moves the ring forward to the current minute, clearing the minutes that drop out of the window
+	 */
+	private void advance(final long nowMillis)
+	{
+		final long minute = Math.max(0, (nowMillis - startMillis) / MINUTE_MILLIS);
+		// Nothing from before the window is left after a full rotation, so the loop is bounded by the ring size
+		final long first = Math.max(currentMinute + 1, minute - HISTORY_MINUTES + 1);
+		for (long m = first; m <= minute; m++)
+		{
+			final int idx = (int) (m % HISTORY_MINUTES);
+			windowOre -= oreHistory[idx];
+			windowHops -= hopHistory[idx];
+			oreHistory[idx] = 0;
+			hopHistory[idx] = 0;
+		}
+
+		currentMinute = Math.max(currentMinute, minute);
+	}
+
+	private long getWindowMillis(final long nowMillis)
+	{
+		final long sessionMillis = nowMillis - startMillis;
+		// The window is the full minutes in the ring plus the part of the current minute that has passed
+		return Math.min(sessionMillis, (HISTORY_MINUTES - 1) * MINUTE_MILLIS + sessionMillis % MINUTE_MILLIS);
+	}
+
+	private void accrue(final long nowMillis)
+	{
+		if (activity != null && nowMillis > activitySinceMillis)
+		{
+			activityMillis[activity.ordinal()] += nowMillis - activitySinceMillis;
+		}
+		activitySinceMillis = nowMillis;
+	}
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import lombok.Getter;
+
+/**
+ * Measures how much of a ticks time budget has been spent and keeps counters of how often it was exceeded.
+ * Only used from the client thread, the counters are also read by the panel.
+ */
+@Getter
+class TickBudget
+{
+	// How many units of work to do between reading the clock
+	private static final int CHECK_INTERVAL = 8;
+
+	private long budgetNanos;
+	private long startNanos;
+	private int workDone;
+
+	// Number of ticks where work had to be carried over to the next tick
+	private volatile long overrunTicks = 0;
+	// Most work items ever carried over to the next tick
+	private volatile int maxCarriedOver = 0;
+	private volatile long totalCarriedOver = 0;
+
+	TickBudget(final long budgetMicros)
+	{
+		setBudgetMicros(budgetMicros);
+	}
+
+	void setBudgetMicros(final long budgetMicros)
+	{
+		budgetNanos = budgetMicros * 1000;
+	}
+
+	void start()
+	{
+		startNanos = System.nanoTime();
+		workDone = 0;
+	}
+
+	/**
+	 * Should be called after each unit of work, the first unit of work is always allowed so progress is guaranteed.
+	 *
+	 * @return true if the budget has been used up
+	 */
+	boolean isExhausted()
+	{
+		return ++workDone % CHECK_INTERVAL == 0 && System.nanoTime() - startNanos > budgetNanos;
+	}
+
+	void recordOverrun(final int carriedOver)
+	{
+		overrunTicks++;
+		totalCarriedOver += carriedOver;
+		maxCarriedOver = Math.max(maxCarriedOver, carriedOver);
+	}
+}
@@ -30,7 +30,6 @@ import java.util.Map;
 import javax.annotation.Nullable;
 import lombok.AccessLevel;
 import lombok.Getter;
-import net.runelite.api.GameObject;
 import net.runelite.api.coords.WorldPoint;
 import net.runelite.http.api.worlds.World;
 
@@ -40,14 +39,26 @@ public class WorldTracker
 	@Getter(AccessLevel.NONE)
 	private final Map<Rock, RuniteRock> rockMap = new HashMap<>();
 	private final World world;
+	@Getter(AccessLevel.NONE)
+	private final GameClock clock;
+	// Called whenever a rock changes state
+	@Getter(AccessLevel.NONE)
+	private final TransitionListener onTransition;
+
+	public WorldTracker(final World world, final GameClock clock)
+	{
+		this(world, clock, null);
+	}
 
-	public WorldTracker(final World world)
+	public WorldTracker(final World world, final GameClock clock, @Nullable final TransitionListener onTransition)
 	{
 		this.world = world;
+		this.clock = clock;
+		this.onTransition = onTransition;
 	}
 
 	@Nullable
-	public RuniteRock updateRockState(final WorldPoint worldPoint, final GameObject gameObject)
+	public RuniteRock updateRockState(final WorldPoint worldPoint, final int objectId, final long tick)
 	{
 		final Rock rock = Rock.getByWorldPoint(worldPoint);
 		if (rock == null)
@@ -55,13 +66,33 @@ public class WorldTracker
 			return null;
 		}
 
-		final RuniteRock runeRock = rockMap.getOrDefault(rock, new RuniteRock(world, rock));
-		runeRock.setAvailable(gameObject.getId());
+		return updateRockState(rock, objectId, tick);
+	}
+
+	public RuniteRock updateRockState(final Rock rock, final int objectId, final long tick)
+	{
+		final RuniteRock existing = rockMap.get(rock);
+		final RuniteRock runeRock = existing == null ? new RuniteRock(world, rock, clock) : existing;
+		final RockState previousState = existing == null ? RockState.UNKNOWN : RockState.of(existing);
+		final long previousUpdate = runeRock.getUpdatedTick();
+
+		runeRock.setAvailable(objectId, tick);
 		rockMap.put(rock, runeRock);
 
+		if (onTransition != null && (previousState != RockState.of(runeRock) || previousUpdate != runeRock.getUpdatedTick()))
+		{
+			onTransition.onTransition(runeRock, previousState, previousUpdate);
+		}
+
 		return runeRock;
 	}
 
+	@Nullable
+	public RuniteRock getRuniteRock(final Rock rock)
+	{
+		return rockMap.get(rock);
+	}
+
 	public void removeRock(final Rock rock)
 	{
 		rockMap.remove(rock);
@@ -76,4 +107,12 @@ public class WorldTracker
 	{
 		return rockMap.values();
 	}
+
+	public interface TransitionListener
+	{
+		/**
+		 * @param previousUpdatedTick the rocks updated tick before the transition
+		 */
+		void onTransition(RuniteRock rock, RockState previousState, long previousUpdatedTick);
+	}
 }
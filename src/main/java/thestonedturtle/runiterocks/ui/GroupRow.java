@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks.ui;
+
+import java.awt.BorderLayout;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import lombok.Getter;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+
+/**
+ * Aggregate row for every rock at a location, clicking it expands or collapses the rocks underneath
+ */
+public class GroupRow extends JPanel
+{
+	private final JLabel arrowLabel = new JLabel();
+	private final JLabel titleLabel = new JLabel();
+	private final JLabel summaryLabel = new JLabel();
+
+	@Getter
+	private final String location;
+	@Getter
+	private boolean expanded = false;
+
+	public GroupRow(final String location, final Runnable onToggle)
+	{
+		this.location = location;
+
+		setLayout(new BorderLayout(4, 0));
+		setBorder(new EmptyBorder(3, 5, 3, 5));
+		setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+		arrowLabel.setFont(FontManager.getRunescapeSmallFont());
+		titleLabel.setFont(FontManager.getRunescapeSmallFont());
+		titleLabel.setForeground(ColorScheme.BRAND_ORANGE);
+		titleLabel.setText(location);
+		summaryLabel.setFont(FontManager.getRunescapeSmallFont());
+
+		final JPanel text = new JPanel(new BorderLayout());
+		text.setOpaque(false);
+		text.add(titleLabel, BorderLayout.NORTH);
+		text.add(summaryLabel, BorderLayout.SOUTH);
+
+		add(arrowLabel, BorderLayout.WEST);
+		add(text, BorderLayout.CENTER);
+		setExpanded(false);
+
+		addMouseListener(new MouseAdapter()
+		{
+			@Override
+			public void mousePressed(MouseEvent mouseEvent)
+			{
+				if (SwingUtilities.isLeftMouseButton(mouseEvent))
+				{
+					onToggle.run();
+				}
+			}
+		});
+	}
+
+	public void setExpanded(final boolean expanded)
+	{
+		this.expanded = expanded;
+		arrowLabel.setText(expanded ? "-" : "+");
+	}
+
+	public void setSummary(final String summary)
+	{
+		summaryLabel.setText(summary);
+	}
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks.ui;
+
+import java.awt.BorderLayout;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.border.EmptyBorder;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+
+/**
+ * Compact two line summary of the sessions throughput shown above the table
+ */
+public class SessionHeader extends JPanel
+{
+	private final JLabel ratesLabel = new JLabel();
+	private final JLabel activityLabel = new JLabel();
+
+	public SessionHeader()
+	{
+		setLayout(new BorderLayout());
+		setBorder(new EmptyBorder(3, 5, 3, 5));
+		setBackground(ColorScheme.DARKER_GRAY_COLOR);
+
+		ratesLabel.setFont(FontManager.getRunescapeSmallFont());
+		ratesLabel.setForeground(ColorScheme.BRAND_ORANGE);
+		activityLabel.setFont(FontManager.getRunescapeSmallFont());
+		activityLabel.setForeground(ColorScheme.LIGHT_GRAY_COLOR);
+
+		add(ratesLabel, BorderLayout.NORTH);
+		add(activityLabel, BorderLayout.SOUTH);
+	}
+
+	public void update(final String rates, final String activity, final String toolTip)
+	{
+		ratesLabel.setText(rates);
+		activityLabel.setText(activity);
+		setToolTipText(toolTip);
+	}
+}
@@ -27,10 +27,12 @@ package thestonedturtle.runiterocks.ui;
 
 import java.awt.BorderLayout;
 import java.awt.Color;
+import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseListener;
 import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
 import javax.annotation.Nonnull;
 import javax.swing.BorderFactory;
 import javax.swing.ImageIcon;
@@ -51,32 +53,39 @@ import net.runelite.client.util.ImageUtil;
  */
 public class TableHeader extends JPanel
 {
-	private static final ImageIcon ARROW_UP;
-	private static final ImageIcon HIGHLIGHT_ARROW_DOWN;
-	private static final ImageIcon HIGHLIGHT_ARROW_UP;
-
 	private static final Color ARROW_COLOR = ColorScheme.LIGHT_GRAY_COLOR;
 	private static final Color HIGHLIGHT_COLOR = ColorScheme.BRAND_ORANGE;
 
-	static
+	/**
+	 * The arrow images are only processed once the first header is built, not when the plugin starts
+	 */
+	private static class Icons
 	{
-		final BufferedImage arrowDown = ImageUtil.getResourceStreamFromClass(WorldHopperPlugin.class, "arrow_down.png");
-		final BufferedImage arrowUp = ImageUtil.rotateImage(arrowDown, Math.PI);
-		final BufferedImage arrowUpFaded = ImageUtil.luminanceOffset(arrowUp, -80);
-		ARROW_UP = new ImageIcon(arrowUpFaded);
-
-		final BufferedImage highlightArrowDown = ImageUtil.fillImage(arrowDown, HIGHLIGHT_COLOR);
-		final BufferedImage highlightArrowUp = ImageUtil.fillImage(arrowUp, HIGHLIGHT_COLOR);
-		HIGHLIGHT_ARROW_DOWN = new ImageIcon(highlightArrowDown);
-		HIGHLIGHT_ARROW_UP = new ImageIcon(highlightArrowUp);
+		private static final ImageIcon ARROW_UP;
+		private static final ImageIcon HIGHLIGHT_ARROW_DOWN;
+		private static final ImageIcon HIGHLIGHT_ARROW_UP;
+
+		static
+		{
+			final BufferedImage arrowDown = ImageUtil.getResourceStreamFromClass(WorldHopperPlugin.class, "arrow_down.png");
+			final BufferedImage arrowUp = ImageUtil.rotateImage(arrowDown, Math.PI);
+			final BufferedImage arrowUpFaded = ImageUtil.luminanceOffset(arrowUp, -80);
+			ARROW_UP = new ImageIcon(arrowUpFaded);
+
+			final BufferedImage highlightArrowDown = ImageUtil.fillImage(arrowDown, HIGHLIGHT_COLOR);
+			final BufferedImage highlightArrowUp = ImageUtil.fillImage(arrowUp, HIGHLIGHT_COLOR);
+			HIGHLIGHT_ARROW_DOWN = new ImageIcon(highlightArrowDown);
+			HIGHLIGHT_ARROW_UP = new ImageIcon(highlightArrowUp);
+		}
 	}
 
 	private final JLabel textLabel = new JLabel();
 	private final JLabel arrowLabel = new JLabel();
+	private final JPopupMenu popupMenu = new JPopupMenu();
 	// Determines if this header column is being used to order the list
 	private boolean ordering = false;
 
-	public TableHeader(String title, boolean ordered, boolean ascending, @Nonnull Runnable onRefresh, @NonNull Runnable onClear)
+	public TableHeader(String title, boolean ordered, boolean ascending, @Nonnull Runnable onRefresh, @NonNull Runnable onClear, @NonNull Runnable onExport)
 	{
 		setLayout(new BorderLayout(5, 0));
 		setBorder(new CompoundBorder(
@@ -92,7 +101,7 @@ public class TableHeader extends JPanel
 				textLabel.setForeground(HIGHLIGHT_COLOR);
 				if (!ordering)
 				{
-					arrowLabel.setIcon(HIGHLIGHT_ARROW_UP);
+					arrowLabel.setIcon(Icons.HIGHLIGHT_ARROW_UP);
 				}
 			}
 
@@ -102,7 +111,7 @@ public class TableHeader extends JPanel
 				if (!ordering)
 				{
 					textLabel.setForeground(ARROW_COLOR);
-					arrowLabel.setIcon(ARROW_UP);
+					arrowLabel.setIcon(Icons.ARROW_UP);
 				}
 			}
 		});
@@ -122,10 +131,16 @@ public class TableHeader extends JPanel
 			onClear.run();
 		});
 
-		final JPopupMenu popupMenu = new JPopupMenu();
+		final JMenuItem export = new JMenuItem("Export history");
+		export.addActionListener(e ->
+		{
+			onExport.run();
+		});
+
 		popupMenu.setBorder(new EmptyBorder(5, 5, 5, 5));
 		popupMenu.add(refresh);
 		popupMenu.add(clear);
+		popupMenu.add(export);
 
 		textLabel.setComponentPopupMenu(popupMenu);
 		setComponentPopupMenu(popupMenu);
@@ -136,6 +151,31 @@ public class TableHeader extends JPanel
 		add(arrowLabel, BorderLayout.EAST);
 	}
 
+	public void addMenuItem(String name, @NonNull Runnable onClick)
+	{
+		final JMenuItem item = new JMenuItem(name);
+		item.addActionListener(e ->
+		{
+			onClick.run();
+		});
+		popupMenu.add(item);
+	}
+
+	/**
+	 * Adds an entry to the right click menu for an ordering that doesn't have its own column.
+	 * The consumer receives whether shift was held so the ordering can be added as another sort key.
+	 */
+	public void addSortMenuItem(String name, @NonNull Consumer<Boolean> onClick)
+	{
+		final JMenuItem item = new JMenuItem(name);
+		item.setToolTipText("Hold shift to add as another sort key");
+		item.addActionListener(e ->
+		{
+			onClick.accept((e.getModifiers() & ActionEvent.SHIFT_MASK) != 0);
+		});
+		popupMenu.add(item);
+	}
+
 	/**
 	 * The labels inherit the parent's mouse listeners.
 	 */
@@ -154,7 +194,7 @@ public class TableHeader extends JPanel
 	public void highlight(boolean on, boolean ascending)
 	{
 		ordering = on;
-		arrowLabel.setIcon(on ? (ascending ? HIGHLIGHT_ARROW_DOWN : HIGHLIGHT_ARROW_UP) : ARROW_UP);
+		arrowLabel.setIcon(on ? (ascending ? Icons.HIGHLIGHT_ARROW_DOWN : Icons.HIGHLIGHT_ARROW_UP) : Icons.ARROW_UP);
 		textLabel.setForeground(on ? HIGHLIGHT_COLOR : ARROW_COLOR);
 	}
 }
@@ -33,7 +33,6 @@ import java.awt.event.MouseEvent;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.time.Duration;
-import java.time.Instant;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.function.BiConsumer;
@@ -49,6 +48,7 @@ import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.FontManager;
 import net.runelite.http.api.worlds.World;
 import net.runelite.http.api.worlds.WorldType;
+import thestonedturtle.runiterocks.ConfigSnapshot;
 import thestonedturtle.runiterocks.Rock;
 import thestonedturtle.runiterocks.RuniteRock;
 import thestonedturtle.runiterocks.RuniteRocksPanel;
@@ -70,38 +70,44 @@ public class TableRow extends JPanel
 
 	private static final DateFormat TIME_FORMATTER = new SimpleDateFormat("h:mm:ss a");
 
-	private JLabel worldLabel;
-	private JLabel locationLabel;
-
+	private final JLabel worldLabel = new JLabel();
+	private final JLabel locationLabel = new JLabel();
 	private final JLabel respawnLabel = new JLabel();
 	private final JLabel lastVisitedLabel = new JLabel();
 
 	@Getter
-	private final World world;
+	private World world;
 	@Getter
-	private final RuniteRock runiteRock;
-	private final boolean respawnCounter;
-	private final boolean visitCounter;
+	private RuniteRock runiteRock;
+	private boolean respawnCounter;
+	private boolean visitCounter;
+	private boolean doubleLeftClickToHop;
 
 	@Getter(AccessLevel.PACKAGE)
 	private int updatedPlayerCount;
 
+	// Cached sort score and the time bucket it was calculated in, -1 when the rock has changed since
+	@Getter
+	private double sortScore;
+	@Getter
+	private long sortScoreBucket = -1;
+	// Packed sort key chain, rebuilt by the panel on every sort
+	@Getter
+	private long[] sortKey;
+
 	private Color lastBackground;
 	private boolean current = false;
 
 	private long lastTimeClicked = System.currentTimeMillis();
 
-	public TableRow(World world, RuniteRock rock, Consumer<World> hopToWorld, BiConsumer<Integer, Rock> removeRock, boolean respawnCounter, boolean visitCounter, boolean doubleLeftClickToHop)
+	/**
+	 * Builds the row components once, {@link #bind} must be called before the row is displayed.
+	 * Rows can be re-bound to a different rock so they can be reused instead of rebuilt.
+	 */
+	public TableRow(Consumer<World> hopToWorld, BiConsumer<Integer, Rock> removeRock)
 	{
-		this.world = world;
-		this.runiteRock = rock;
-		this.updatedPlayerCount = world.getPlayers();
-		this.respawnCounter = respawnCounter;
-		this.visitCounter = visitCounter;
-
 		setLayout(new BorderLayout());
 		setBorder(new EmptyBorder(2, 0, 2, 0));
-		setForeground(getWorldColor());
 
 		addMouseListener(new MouseAdapter()
 		{
@@ -172,6 +178,26 @@ public class TableRow extends JPanel
 		setComponentPopupMenu(popupMenu);
 	}
 
+	/**
+	 * Binds this row to the rock and refreshes every label
+	 */
+	public void bind(World world, RuniteRock rock, ConfigSnapshot config)
+	{
+		this.world = world;
+		this.runiteRock = rock;
+		this.updatedPlayerCount = world.getPlayers();
+		this.sortScoreBucket = -1;
+		setDisplayOptions(config);
+
+		worldLabel.setText(String.valueOf(world.getId()));
+		locationLabel.setText(rock.getCompetitors() > 0 ? rock.getRock().getName() + " +" + rock.getCompetitors() : rock.getRock().getName());
+		locationLabel.setToolTipText(rock.getRock().getLocation());
+		setForeground(getWorldColor());
+		setCurrent(current);
+		updateRespawnLabel();
+		updateLastVisitedLabel();
+	}
+
 	/**
 	 * Builds the world list field (containing the the world index)
 	 */
@@ -180,7 +206,6 @@ public class TableRow extends JPanel
 		final JPanel column = new JPanel(new BorderLayout(7, 0));
 		column.setBorder(new EmptyBorder(0, 5, 0, 5));
 
-		worldLabel = new JLabel(String.valueOf(world.getId()));
 		column.add(worldLabel, BorderLayout.CENTER);
 
 		return column;
@@ -194,9 +219,7 @@ public class TableRow extends JPanel
 		final JPanel column = new JPanel(new BorderLayout());
 		column.setBorder(new EmptyBorder(0, 5, 0, 5));
 
-		locationLabel = new JLabel(runiteRock.getRock().getName());
 		locationLabel.setFont(FontManager.getRunescapeSmallFont());
-		locationLabel.setToolTipText(runiteRock.getRock().getLocation());
 
 		column.add(locationLabel, BorderLayout.WEST);
 
@@ -212,7 +235,6 @@ public class TableRow extends JPanel
 		column.setBorder(new EmptyBorder(0, 5, 0, 5));
 
 		respawnLabel.setFont(FontManager.getRunescapeSmallFont());
-		updateRespawnLabel();
 
 		column.add(respawnLabel, BorderLayout.WEST);
 
@@ -228,10 +250,9 @@ public class TableRow extends JPanel
 			return;
 		}
 
-		final Instant respawn = runiteRock.getRespawnTime();
 		if (respawnCounter)
 		{
-			final Duration seconds = Duration.between(respawn, Instant.now());
+			final Duration seconds = runiteRock.getTimeSinceRespawn();
 			if (!seconds.isNegative())
 			{
 				respawnLabel.setText("Available");
@@ -245,7 +266,7 @@ public class TableRow extends JPanel
 		}
 		else
 		{
-			respawnLabel.setText(TIME_FORMATTER.format(Date.from(respawn)));
+			respawnLabel.setText(TIME_FORMATTER.format(Date.from(runiteRock.getRespawnTime())));
 			respawnLabel.setForeground(ColorScheme.DARK_GRAY_COLOR);
 		}
 
@@ -264,7 +285,6 @@ public class TableRow extends JPanel
 		column.setBorder(new EmptyBorder(0, 5, 0, 5));
 
 		lastVisitedLabel.setFont(FontManager.getRunescapeSmallFont());
-		updateLastVisitedLabel();
 
 		column.add(lastVisitedLabel, BorderLayout.WEST);
 
@@ -273,26 +293,52 @@ public class TableRow extends JPanel
 
 	private void updateLastVisitedLabel()
 	{
-		final Instant time = runiteRock.getLastSeenAt();
 		String text;
-		if (time == null)
+		if (visitCounter)
 		{
-			text = "Unknown";
-		}
-		else if (visitCounter)
-		{
-			final Duration seconds = Duration.between(time, Instant.now());
+			final Duration seconds = runiteRock.getTimeSinceLastSeen();
 			text = seconds.isNegative() ? "-" : "";
 			text += getReadableTimeElapsed(seconds).trim();
 		}
 		else
 		{
-			text = TIME_FORMATTER.format(Date.from(time));
+			text = TIME_FORMATTER.format(Date.from(runiteRock.getLastSeenAt()));
 		}
 
 		lastVisitedLabel.setText(text);
 	}
 
+	/**
+	 * Updates how the timers are displayed, {@link #refresh()} should be called afterwards
+	 */
+	public void setDisplayOptions(ConfigSnapshot config)
+	{
+		this.respawnCounter = config.isRespawnCounter();
+		this.visitCounter = config.isVisitCounter();
+		this.doubleLeftClickToHop = config.isDoubleLeftClickToHop();
+	}
+
+	public void setWorldToolTip(final String toolTip)
+	{
+		worldLabel.setToolTipText(toolTip);
+	}
+
+	public void setSortKey(final long[] sortKey)
+	{
+		this.sortKey = sortKey;
+	}
+
+	public void setSortScore(final double score, final long bucket)
+	{
+		this.sortScore = score;
+		this.sortScoreBucket = bucket;
+	}
+
+	public void setLocationToolTip(final String toolTip)
+	{
+		locationLabel.setToolTipText(toolTip);
+	}
+
 	public void setCurrent(final boolean current)
 	{
 		this.current = current;
@@ -315,7 +361,7 @@ public class TableRow extends JPanel
 		return current ? CURRENT_WORLD : getWorldColor(world);
 	}
 
-	private static Color getWorldColor(final World world)
+	static Color getWorldColor(final World world)
 	{
 		final EnumSet<WorldType> types = world.getTypes();
 		if (types.contains(WorldType.PVP) || types.contains(WorldType.HIGH_RISK) || types.contains(WorldType.DEADMAN))
@@ -0,0 +1,377 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks.ui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+import javax.swing.ToolTipManager;
+import net.runelite.client.ui.ColorScheme;
+import net.runelite.client.ui.FontManager;
+import net.runelite.http.api.worlds.World;
+import thestonedturtle.runiterocks.RuniteRock;
+
+/**
+ * Draws the upcoming respawns on a horizontal time axis, one marker per rock.
+ * <p>
+ * The markers and the grid are drawn in to cached images in absolute time, so a timer update only moves where the
+ * image is drawn. The images are rebuilt when the rocks change, the size changes, the axis has moved past the
+ * cached range or the next marker reaches now. Rocks that are available or already past their respawn are drawn in a
+ * fixed column on the left.
+ * <p>
+ * Times come from the same clock as the respawn times so the two can't disagree.
+ */
+public class TimelineView extends JComponent
+{
+	private static final long WINDOW_MILLIS = 15 * 60 * 1000L;
+	// The timeline layer covers this much time past the window so it can be shifted before it needs rebuilding
+	private static final long SLACK_MILLIS = 60 * 1000L;
+	private static final long GRID_MILLIS = 5 * 60 * 1000L;
+	private static final int AVAILABLE_WIDTH = 36;
+	private static final int AXIS_HEIGHT = 14;
+	private static final int MARKER_SIZE = 7;
+	private static final int LANE_HEIGHT = MARKER_SIZE + 2;
+	private static final int MAX_LANES = 12;
+	private static final Color GRID_COLOR = ColorScheme.MEDIUM_GRAY_COLOR;
+	private static final Color NOW_COLOR = ColorScheme.BRAND_ORANGE;
+	private static final DateFormat TIME_FORMATTER = new SimpleDateFormat("h:mm");
+
+	private final Consumer<World> hopToWorld;
+	private final LongSupplier clock;
+
+	private final List<Marker> markers = new ArrayList<>();
+	private BufferedImage timelineLayer;
+	private BufferedImage availableLayer;
+	// Absolute time the left edge of the timeline layer represents
+	private long layerStartMillis;
+	// Respawn time of the first marker drawn on the timeline layer, it moves to the available column once reached
+	private long nextDueMillis = Long.MAX_VALUE;
+	private int lanes = 1;
+	private boolean dirty = true;
+
+	/**
+	 * @param clock current time in epoch millis
+	 */
+	public TimelineView(final Consumer<World> hopToWorld, final LongSupplier clock)
+	{
+		this.hopToWorld = hopToWorld;
+		this.clock = clock;
+		setBackground(ColorScheme.DARK_GRAY_COLOR);
+		setOpaque(true);
+		ToolTipManager.sharedInstance().registerComponent(this);
+
+		addMouseListener(new MouseAdapter()
+		{
+			@Override
+			public void mouseClicked(MouseEvent mouseEvent)
+			{
+				if (SwingUtilities.isLeftMouseButton(mouseEvent) && mouseEvent.getClickCount() == 2)
+				{
+					final Marker marker = findMarker(mouseEvent.getX(), mouseEvent.getY());
+					if (marker != null)
+					{
+						hopToWorld.accept(marker.world);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Copies the rocks to draw, the layers are rebuilt on the next paint
+	 */
+	public void setRocks(final Collection<RuniteRock> rocks)
+	{
+		markers.clear();
+		for (final RuniteRock rock : rocks)
+		{
+			markers.add(new Marker(rock));
+		}
+		markers.sort((m1, m2) -> Long.compare(m1.respawnMillis, m2.respawnMillis));
+
+		dirty = true;
+		final int previousLanes = lanes;
+		layoutLanes(clock.getAsLong());
+		if (lanes != previousLanes)
+		{
+			revalidate();
+		}
+		repaint();
+	}
+
+	/**
+	 * @return true if a rock is still waiting to respawn, so the axis needs to keep moving
+	 */
+	public boolean hasUpcoming()
+	{
+		final long now = clock.getAsLong();
+		for (final Marker marker : markers)
+		{
+			if (!marker.available && marker.respawnMillis > now)
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	@Override
+	public Dimension getPreferredSize()
+	{
+		return new Dimension(super.getPreferredSize().width, AXIS_HEIGHT + lanes * LANE_HEIGHT + 2);
+	}
+
+	@Override
+	public String getToolTipText(final MouseEvent event)
+	{
+		final Marker marker = findMarker(event.getX(), event.getY());
+		if (marker == null)
+		{
+			return null;
+		}
+
+		return "<html>W" + marker.world.getId() + " " + marker.name + " - " + marker.location
+			+ "<br/>" + (marker.available ? "Available" : "Respawns at " + TIME_FORMATTER.format(new Date(marker.respawnMillis)))
+			+ (marker.accurate ? "" : " (inaccurate)") + "</html>";
+	}
+
+	@Override
+	protected void paintComponent(final Graphics g)
+	{
+		g.setColor(getBackground());
+		g.fillRect(0, 0, getWidth(), getHeight());
+
+		final int timelineWidth = getWidth() - AVAILABLE_WIDTH;
+		if (timelineWidth <= 0)
+		{
+			return;
+		}
+
+		final long now = clock.getAsLong();
+		if (dirty || timelineLayer == null || timelineLayer.getWidth() != timelineWidth + slackPixels(timelineWidth)
+			|| timelineLayer.getHeight() != getHeight() || now > layerStartMillis + SLACK_MILLIS || now >= nextDueMillis)
+		{
+			rebuildLayers(now, timelineWidth);
+		}
+
+		g.drawImage(availableLayer, 0, 0, null);
+
+		final Graphics clipped = g.create(AVAILABLE_WIDTH, 0, timelineWidth, getHeight());
+		clipped.drawImage(timelineLayer, -toPixels(now - layerStartMillis, timelineWidth), 0, null);
+		clipped.dispose();
+
+		g.setColor(NOW_COLOR);
+		g.drawLine(AVAILABLE_WIDTH, 0, AVAILABLE_WIDTH, getHeight());
+	}
+
+	private void rebuildLayers(final long now, final int timelineWidth)
+	{
+		layerStartMillis = now;
+		layoutLanes(now);
+
+		timelineLayer = new BufferedImage(timelineWidth + slackPixels(timelineWidth), getHeight(), BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D timeline = timelineLayer.createGraphics();
+		timeline.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		timeline.setFont(FontManager.getRunescapeSmallFont());
+		for (long grid = (now / GRID_MILLIS + 1) * GRID_MILLIS; grid < now + WINDOW_MILLIS + SLACK_MILLIS; grid += GRID_MILLIS)
+		{
+			final int x = toPixels(grid - now, timelineWidth);
+			timeline.setColor(GRID_COLOR);
+			timeline.drawLine(x, AXIS_HEIGHT, x, getHeight());
+			timeline.drawString(TIME_FORMATTER.format(new Date(grid)), x + 2, AXIS_HEIGHT - 3);
+		}
+
+		availableLayer = new BufferedImage(AVAILABLE_WIDTH, getHeight(), BufferedImage.TYPE_INT_ARGB);
+		final Graphics2D available = availableLayer.createGraphics();
+		available.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		available.setFont(FontManager.getRunescapeSmallFont());
+		available.setColor(GRID_COLOR);
+		available.drawString("Now", 2, AXIS_HEIGHT - 3);
+
+		nextDueMillis = Long.MAX_VALUE;
+		for (final Marker marker : markers)
+		{
+			if (marker.lane < 0)
+			{
+				continue;
+			}
+
+			if (marker.isDue(now))
+			{
+				drawMarker(available, marker, marker.x);
+			}
+			else
+			{
+				drawMarker(timeline, marker, marker.x);
+				nextDueMillis = Math.min(nextDueMillis, marker.respawnMillis);
+			}
+		}
+
+		timeline.dispose();
+		available.dispose();
+		dirty = false;
+	}
+
+	/**
+	 * Assigns each marker an x position in its layer and the first lane where it doesn't overlap another marker.
+	 * Due rocks fill the available column top to bottom and then left to right.
+	 */
+	private void layoutLanes(final long now)
+	{
+		final int timelineWidth = Math.max(1, getWidth() - AVAILABLE_WIDTH);
+		final int layerWidth = timelineWidth + slackPixels(timelineWidth);
+		final int[] laneEnds = new int[MAX_LANES];
+		Arrays.fill(laneEnds, Integer.MIN_VALUE);
+		int due = 0;
+		lanes = 1;
+
+		for (final Marker marker : markers)
+		{
+			marker.lane = -1;
+			if (marker.isDue(now))
+			{
+				marker.x = 2 + (due / MAX_LANES) * (MARKER_SIZE + 1);
+				if (marker.x + MARKER_SIZE <= AVAILABLE_WIDTH)
+				{
+					marker.lane = due % MAX_LANES;
+				}
+				due++;
+			}
+			else
+			{
+				marker.x = toPixels(marker.respawnMillis - now, timelineWidth);
+				for (int lane = 0; lane < MAX_LANES && marker.x < layerWidth; lane++)
+				{
+					if (laneEnds[lane] < marker.x)
+					{
+						marker.lane = lane;
+						laneEnds[lane] = marker.x + MARKER_SIZE;
+						break;
+					}
+				}
+			}
+
+			lanes = Math.max(lanes, marker.lane + 1);
+		}
+	}
+
+	private void drawMarker(final Graphics2D g, final Marker marker, final int x)
+	{
+		final int y = AXIS_HEIGHT + marker.lane * LANE_HEIGHT + 1;
+		g.setColor(marker.color);
+		if (marker.accurate)
+		{
+			g.fillOval(x, y, MARKER_SIZE, MARKER_SIZE);
+		}
+		else
+		{
+			// Inaccurate timers are hollow
+			g.drawOval(x, y, MARKER_SIZE - 1, MARKER_SIZE - 1);
+		}
+	}
+
+	private Marker findMarker(final int mouseX, final int mouseY)
+	{
+		final long now = clock.getAsLong();
+		final int timelineWidth = getWidth() - AVAILABLE_WIDTH;
+		final int shift = toPixels(now - layerStartMillis, Math.max(1, timelineWidth));
+		for (final Marker marker : markers)
+		{
+			if (marker.lane < 0)
+			{
+				continue;
+			}
+
+			final boolean due = marker.isDue(layerStartMillis);
+			final int x = due ? marker.x : AVAILABLE_WIDTH + marker.x - shift;
+			final int y = AXIS_HEIGHT + marker.lane * LANE_HEIGHT + 1;
+			if (mouseX >= x && mouseX < x + MARKER_SIZE && mouseY >= y && mouseY < y + MARKER_SIZE)
+			{
+				return marker;
+			}
+		}
+
+		return null;
+	}
+
+	private static int slackPixels(final int timelineWidth)
+	{
+		return toPixels(SLACK_MILLIS, timelineWidth);
+	}
+
+	private static int toPixels(final long millis, final int timelineWidth)
+	{
+		return (int) (millis * timelineWidth / WINDOW_MILLIS);
+	}
+
+	/**
+	 * Copy of the rock taken when the rocks are set so painting doesn't read the live rock
+	 */
+	private static class Marker
+	{
+		private final World world;
+		private final String name;
+		private final String location;
+		private final boolean available;
+		private final boolean accurate;
+		private final long respawnMillis;
+		private final Color color;
+		private int x;
+		private int lane;
+
+		private Marker(final RuniteRock rock)
+		{
+			this.world = rock.getWorld();
+			this.name = rock.getRock().getName();
+			this.location = rock.getRock().getLocation();
+			this.available = rock.isAvailable();
+			this.accurate = rock.isAvailable() || rock.hasWitnessedDepletion();
+			this.respawnMillis = rock.getRespawnTime().toEpochMilli();
+			this.color = TableRow.getWorldColor(rock.getWorld());
+		}
+
+		private boolean isDue(final long now)
+		{
+			return available || respawnMillis <= now;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link GameClock} driven by the test instead of {@link System#nanoTime()}, so tick estimates are deterministic.
+ */
+class FakeGameClock extends GameClock
+{
+	private final AtomicLong nanos;
+	private int clientTick = 0;
+
+	FakeGameClock()
+	{
+		this(new AtomicLong());
+	}
+
+	private FakeGameClock(final AtomicLong nanos)
+	{
+		super(nanos::get);
+		this.nanos = nanos;
+	}
+
+	/**
+	 * Moves time forward without a game tick, like the client does between ticks
+	 */
+	void advanceMillis(final long millis)
+	{
+		nanos.addAndGet(millis * 1_000_000);
+	}
+
+	/**
+	 * Moves time forward and notifies the clock of the game ticks the same way the plugin does
+	 */
+	void tick(final int ticks)
+	{
+		advanceMillis(ticks * TICK_MILLIS);
+		clientTick += ticks;
+		onGameTick(clientTick);
+	}
+}
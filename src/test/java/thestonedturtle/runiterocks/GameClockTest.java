@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameClockTest
+{
+	private FakeGameClock clock;
+
+	@Before
+	public void before()
+	{
+		clock = new FakeGameClock();
+	}
+
+	@Test
+	public void testConsecutiveTicksFollowClientTicks()
+	{
+		clock.tick(1);
+		final long first = clock.now();
+
+		// A slow tick still only counts as one tick when the client tick count agrees
+		clock.advanceMillis(1000);
+		clock.onGameTick(2);
+		assertEquals(first + 1, clock.now());
+	}
+
+	@Test
+	public void testClientTickJumpFallsBackToElapsedTime()
+	{
+		clock.tick(1);
+		final long first = clock.now();
+
+		// Hopping resets the client tick count
+		clock.advanceMillis(10 * GameClock.TICK_MILLIS);
+		clock.onGameTick(0);
+		assertEquals(first + 10, clock.now());
+	}
+
+	@Test
+	public void testNowEstimatesBetweenTicks()
+	{
+		clock.tick(1);
+		final long first = clock.now();
+
+		clock.advanceMillis(3 * GameClock.TICK_MILLIS + 100);
+		assertEquals(first + 3, clock.now());
+	}
+
+	@Test
+	public void testTickNeverGoesBackwards()
+	{
+		clock.tick(1);
+		final long first = clock.now();
+
+		clock.onGameTick(100);
+		assertTrue(clock.now() > first);
+	}
+
+	@Test
+	public void testLateTickDoesNotMoveBackwards()
+	{
+		clock.tick(1);
+		final long first = clock.now();
+
+		// The next tick is late so the estimate has already moved on by the time it arrives
+		clock.advanceMillis(2 * GameClock.TICK_MILLIS + 100);
+		assertEquals(first + 2, clock.now());
+		clock.onGameTick(2);
+		assertEquals(first + 2, clock.now());
+
+		clock.advanceMillis(2 * GameClock.TICK_MILLIS);
+		assertEquals(first + 3, clock.now());
+	}
+
+	@Test
+	public void testEpochMillisFollowTicks()
+	{
+		clock.tick(1);
+		final long now = clock.now();
+		assertEquals(clock.currentEpochMillis(), clock.toEpochMillis(now));
+		assertEquals(GameClock.ticksToMillis(5), clock.toEpochMillis(now + 5) - clock.toEpochMillis(now));
+	}
+
+	@Test
+	public void testMillisToTicksRoundsUp()
+	{
+		assertEquals(0, GameClock.millisToTicks(0));
+		assertEquals(1, GameClock.millisToTicks(1));
+		assertEquals(1, GameClock.millisToTicks(GameClock.TICK_MILLIS));
+		assertEquals(1200, GameClock.millisToTicks(720_000));
+	}
+}
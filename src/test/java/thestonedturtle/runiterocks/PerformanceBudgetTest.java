@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Fails when the hot paths start allocating or get much slower. Allocations are deterministic so their limits are
+ * tight, the time limits are generous so only order of magnitude regressions fail on a busy machine. The best of a
+ * few runs is used so a GC pause doesn't fail the build.
+ */
+@Category(PerformanceTests.class)
+public class PerformanceBudgetTest
+{
+	private static final int ROCKS = 10_000;
+	private static final int ROWS = 6_000;
+	private static final int WARMUP_RUNS = 50;
+	private static final int MEASURED_RUNS = 5;
+
+	private static final long MAX_UPDATE_NANOS = 250_000_000;
+	private static final long MAX_UPDATE_BYTES = 64 * 1024;
+	private static final long MAX_SORT_NANOS = 250_000_000;
+	// Merge sort needs a temporary array of up to half the rows
+	private static final long MAX_SORT_BYTES = 64 * 1024;
+
+	private static final Comparator<long[]> SORT_KEY_COMPARATOR = RuniteRocksPanel::compareSortKeys;
+
+	private final List<Rock> rocks = ResourceCatalog.getInstance().getRocks();
+	private WorldTracker[] trackers;
+	private long tick;
+	private int transitions;
+	private long[][] keys;
+	private final long[][] work = new long[ROWS][];
+
+	@Before
+	public void before()
+	{
+		final FakeGameClock clock = new FakeGameClock();
+		clock.tick(1);
+		tick = clock.now();
+
+		trackers = new WorldTracker[(ROCKS + rocks.size() - 1) / rocks.size()];
+		for (int i = 0; i < trackers.length; i++)
+		{
+			trackers[i] = new WorldTracker(FakeWorlds.world(300 + i), clock, (rock, previousState, previousUpdatedTick) -> transitions++);
+		}
+
+		final Random random = new Random(0x5EED);
+		keys = new long[ROWS][];
+		for (int i = 0; i < ROWS; i++)
+		{
+			// World type rank, respawn tick and the unique row key tiebreak, like a typical sort chain
+			keys[i] = new long[]{random.nextInt(3), random.nextInt(2000), i};
+		}
+	}
+
+	@Test
+	public void testUpdatingRocksTime()
+	{
+		final long nanos = bestNanos(this::updateAll);
+		// Every rock flips state on every pass
+		assertTrue(transitions >= ROCKS);
+		assertTrue("updating " + ROCKS + " rocks took " + nanos + "ns", nanos <= MAX_UPDATE_NANOS);
+	}
+
+	@Test
+	public void testUpdatingRocksAllocations()
+	{
+		final long bytes = bestAllocatedBytes(this::updateAll);
+		assertTrue("updating " + ROCKS + " rocks allocated " + bytes + " bytes", bytes <= MAX_UPDATE_BYTES);
+	}
+
+	@Test
+	public void testSortingRowsTime()
+	{
+		final long nanos = bestNanos(this::sortRows);
+		for (int i = 1; i < ROWS; i++)
+		{
+			assertTrue(RuniteRocksPanel.compareSortKeys(work[i - 1], work[i]) < 0);
+		}
+		assertTrue("sorting " + ROWS + " rows took " + nanos + "ns", nanos <= MAX_SORT_NANOS);
+	}
+
+	@Test
+	public void testSortingRowsAllocations()
+	{
+		final long bytes = bestAllocatedBytes(this::sortRows);
+		assertTrue("sorting " + ROWS + " rows allocated " + bytes + " bytes", bytes <= MAX_SORT_BYTES);
+	}
+
+	private long bestNanos(final Runnable task)
+	{
+		warmUp(task);
+
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_RUNS; i++)
+		{
+			final long start = System.nanoTime();
+			task.run();
+			best = Math.min(best, System.nanoTime() - start);
+		}
+
+		return best;
+	}
+
+	/**
+	 * Skips the test, rather than passing it, on JVMs that can't measure per thread allocations
+	 */
+	private long bestAllocatedBytes(final Runnable task)
+	{
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		assumeTrue("Per thread allocation measurement isn't supported", threads instanceof com.sun.management.ThreadMXBean);
+		final com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		assumeTrue("Per thread allocation measurement isn't enabled",
+			allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled());
+
+		warmUp(task);
+
+		final long threadId = Thread.currentThread().getId();
+		long best = Long.MAX_VALUE;
+		for (int i = 0; i < MEASURED_RUNS; i++)
+		{
+			final long start = allocations.getThreadAllocatedBytes(threadId);
+			task.run();
+			best = Math.min(best, allocations.getThreadAllocatedBytes(threadId) - start);
+		}
+
+		return best;
+	}
+
+	private static void warmUp(final Runnable task)
+	{
+		for (int i = 0; i < WARMUP_RUNS; i++)
+		{
+			task.run();
+		}
+	}
+
+	/**
+	 * Sees every rock in every world, alternating between available and depleted on each call
+	 */
+	private void updateAll()
+	{
+		tick++;
+		final boolean available = (tick & 1) == 0;
+		for (final WorldTracker tracker : trackers)
+		{
+			for (int i = 0; i < rocks.size(); i++)
+			{
+				final Rock rock = rocks.get(i);
+				tracker.updateRockState(rock, available ? rock.getActivateState() : rock.getDepletedState(), tick);
+			}
+		}
+	}
+
+	private void sortRows()
+	{
+		System.arraycopy(keys, 0, work, 0, ROWS);
+		Arrays.sort(work, SORT_KEY_COMPARATOR);
+	}
+}
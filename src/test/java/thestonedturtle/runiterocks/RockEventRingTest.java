@@ -0,0 +1,141 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RockEventRingTest
+{
+	private static final long KEY_A = RockEventRing.packKey(301, 3059, 3885, 0);
+	private static final long KEY_B = RockEventRing.packKey(302, 3059, 3885, 0);
+
+	private final List<long[]> delivered = new ArrayList<>();
+	private RockEventRing ring;
+
+	@Before
+	public void before()
+	{
+		ring = new RockEventRing(5);
+	}
+
+	@Test
+	public void testPackedKey()
+	{
+		assertEquals(301, RockEventRing.unpackWorld(KEY_A));
+		assertEquals(ResourceCatalog.packLocation(3059, 3885, 0), RockEventRing.unpackLocation(KEY_A));
+	}
+
+	@Test
+	public void testCapacityIsRoundedUp()
+	{
+		for (int i = 0; i < 8; i++)
+		{
+			assertTrue(ring.offer(KEY_A, i, i));
+		}
+
+		assertFalse(ring.offer(KEY_A, 8, 8));
+		assertEquals(8, ring.size());
+		assertEquals(1, ring.takeDropped());
+		assertEquals(0, ring.takeDropped());
+	}
+
+	@Test
+	public void testOnlyLatestEventPerKeyIsDelivered()
+	{
+		ring.offer(KEY_A, 1, 10);
+		ring.offer(KEY_B, 2, 11);
+		ring.offer(KEY_A, 3, 12);
+
+		assertEquals(2, ring.drain(this::record));
+		assertTrue(ring.isEmpty());
+		assertEquals(2, delivered.size());
+		assertEquals(KEY_B, delivered.get(0)[0]);
+		assertEquals(KEY_A, delivered.get(1)[0]);
+		assertEquals(3, delivered.get(1)[1]);
+		assertEquals(12, delivered.get(1)[2]);
+	}
+
+	@Test
+	public void testStoppedDrainKeepsRemainingEvents()
+	{
+		ring.offer(KEY_A, 1, 10);
+		ring.offer(KEY_B, 2, 11);
+
+		assertEquals(1, ring.drain((key, objectId, tick) -> record(key, objectId, tick) && false));
+		assertEquals(1, ring.size());
+
+		assertEquals(1, ring.drain(this::record));
+		assertEquals(KEY_B, delivered.get(1)[0]);
+	}
+
+	@Test
+	public void testPendingKeys()
+	{
+		ring.offer(KEY_A, 1, 10);
+		ring.offer(KEY_B, 2, 11);
+		assertTrue(ring.hasPending(KEY_A));
+
+		// Stop after the first event, only the second is carried over
+		ring.drain((key, objectId, tick) -> false);
+		assertFalse(ring.hasPending(KEY_A));
+		assertTrue(ring.hasPending(KEY_B));
+	}
+
+	@Test
+	public void testWrapsAround()
+	{
+		for (int i = 0; i < 100; i++)
+		{
+			assertTrue(ring.offer(KEY_A, i, i));
+			assertTrue(ring.offer(KEY_B, i, i));
+			assertEquals(2, ring.drain(this::record));
+		}
+
+		assertEquals(200, delivered.size());
+		assertEquals(99, delivered.get(199)[1]);
+	}
+
+	@Test
+	public void testClear()
+	{
+		ring.offer(KEY_A, 1, 10);
+		ring.clear();
+
+		assertTrue(ring.isEmpty());
+		assertEquals(0, ring.drain(this::record));
+	}
+
+	private boolean record(final long key, final int objectId, final long tick)
+	{
+		delivered.add(new long[]{key, objectId, tick});
+		return true;
+	}
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.Random;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class RuniteRockTest
+{
+	private static final int UNEXPECTED_ID = 1;
+
+	private FakeGameClock clock;
+	private Rock rock;
+	private RuniteRock runiteRock;
+
+	@Before
+	public void before()
+	{
+		clock = new FakeGameClock();
+		clock.tick(1);
+		rock = ResourceCatalog.getInstance().getByKey("LAVA_MINE_1");
+		runiteRock = new RuniteRock(FakeWorlds.world(301), rock, clock);
+	}
+
+	@Test
+	public void testNewRockIsDepleted()
+	{
+		assertFalse(runiteRock.isAvailable());
+		assertFalse(runiteRock.hasWitnessedDepletion());
+		assertEquals(clock.now(), runiteRock.getUpdatedTick());
+		assertEquals(clock.now(), runiteRock.getLastSeenTick());
+	}
+
+	@Test
+	public void testDepletedToAvailable()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+
+		assertTrue(runiteRock.isAvailable());
+		assertEquals(5, runiteRock.getUpdatedTick());
+		assertEquals(5, runiteRock.getRespawnTick());
+	}
+
+	@Test
+	public void testAvailableSeenAgainKeepsUpdatedTick()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		runiteRock.setAvailable(rock.getActivateState(), 8);
+
+		assertTrue(runiteRock.isAvailable());
+		assertEquals(5, runiteRock.getUpdatedTick());
+		assertEquals(8, runiteRock.getLastSeenTick());
+	}
+
+	@Test
+	public void testAvailableToDepletedIsWitnessed()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+
+		assertFalse(runiteRock.isAvailable());
+		assertTrue(runiteRock.hasWitnessedDepletion());
+		assertEquals(10, runiteRock.getUpdatedTick());
+		assertEquals(10 + rock.getRespawnTicks(), runiteRock.getRespawnTick());
+	}
+
+	@Test
+	public void testRespawnClearsWitnessedDepletion()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+		runiteRock.setAvailable(rock.getActivateState(), 20);
+
+		assertTrue(runiteRock.isAvailable());
+		assertFalse(runiteRock.hasWitnessedDepletion());
+		assertEquals(20, runiteRock.getUpdatedTick());
+	}
+
+	@Test
+	public void testRespawnSeenWhileDepletedIsWitnessed()
+	{
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+		runiteRock.setAvailable(rock.getActivateState(), 10 + SceneProbe.PROBE_INTERVAL_TICKS);
+
+		assertTrue(runiteRock.hasWitnessedRespawn());
+	}
+
+	@Test
+	public void testArrivingAtAnAvailableRockIsNotAWitnessedRespawn()
+	{
+		// Never seen depleted
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		assertFalse(runiteRock.hasWitnessedRespawn());
+
+		// Seen depleted but left before it respawned
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+		runiteRock.setAvailable(rock.getActivateState(), 11 + SceneProbe.PROBE_INTERVAL_TICKS);
+		assertFalse(runiteRock.hasWitnessedRespawn());
+	}
+
+	@Test
+	public void testUnwitnessedDepletionKeepsFutureRespawn()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+
+		// Seen depleted again before the respawn time, the timer is still valid
+		runiteRock.setAvailable(rock.getDepletedState(), 100);
+
+		assertTrue(runiteRock.hasWitnessedDepletion());
+		assertEquals(10, runiteRock.getUpdatedTick());
+		assertEquals(100, runiteRock.getLastSeenTick());
+	}
+
+	@Test
+	public void testUnwitnessedDepletionWithPastRespawn()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+
+		// The rock respawned and was mined again while it wasn't in view
+		final long tick = 10 + rock.getRespawnTicks() + 50;
+		runiteRock.setAvailable(rock.getDepletedState(), tick);
+
+		assertFalse(runiteRock.isAvailable());
+		assertFalse(runiteRock.hasWitnessedDepletion());
+		assertEquals(tick, runiteRock.getUpdatedTick());
+		assertEquals(tick + rock.getRespawnTicks(), runiteRock.getRespawnTick());
+	}
+
+	@Test
+	public void testUnexpectedObjectIdOnlyUpdatesLastSeen()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), 5);
+		runiteRock.setAvailable(UNEXPECTED_ID, 9);
+
+		assertTrue(runiteRock.isAvailable());
+		assertEquals(5, runiteRock.getUpdatedTick());
+		assertEquals(9, runiteRock.getLastSeenTick());
+
+		runiteRock.setAvailable(rock.getDepletedState(), 10);
+		runiteRock.setAvailable(UNEXPECTED_ID, 11);
+
+		assertFalse(runiteRock.isAvailable());
+		assertTrue(runiteRock.hasWitnessedDepletion());
+		assertEquals(10, runiteRock.getUpdatedTick());
+	}
+
+	@Test
+	public void testTimesFollowTheClock()
+	{
+		runiteRock.setAvailable(rock.getActivateState(), clock.now());
+		runiteRock.setAvailable(rock.getDepletedState(), clock.now());
+
+		assertEquals(-GameClock.ticksToMillis(rock.getRespawnTicks()), runiteRock.getTimeSinceRespawn().toMillis());
+
+		clock.tick((int) rock.getRespawnTicks());
+		assertEquals(0, runiteRock.getTimeSinceRespawn().toMillis());
+		assertEquals(GameClock.ticksToMillis(rock.getRespawnTicks()), runiteRock.getTimeSinceLastSeen().toMillis());
+	}
+
+	/**
+	 * Feeds random sightings with a fixed seed and checks the invariants that must hold after every one of them
+	 */
+	@Test
+	public void testRandomSightingsKeepInvariants()
+	{
+		final Random random = new Random(0x5EED);
+		final int[] ids = {rock.getActivateState(), rock.getDepletedState(), UNEXPECTED_ID};
+		final long maxStep = rock.getRespawnTicks() * 2;
+
+		for (int run = 0; run < 100; run++)
+		{
+			final RuniteRock subject = new RuniteRock(FakeWorlds.world(301), rock, clock);
+			boolean expectedAvailable = false;
+			long tick = clock.now();
+			long previousUpdate = subject.getUpdatedTick();
+
+			for (int i = 0; i < 200; i++)
+			{
+				tick += random.nextInt((int) maxStep);
+				final int id = ids[random.nextInt(ids.length)];
+				subject.setAvailable(id, tick);
+
+				if (id != UNEXPECTED_ID)
+				{
+					expectedAvailable = id == rock.getActivateState();
+				}
+
+				final String context = "run " + run + " step " + i;
+				assertEquals(context, expectedAvailable, subject.isAvailable());
+				assertEquals(context, tick, subject.getLastSeenTick());
+				assertTrue(context, subject.getUpdatedTick() >= previousUpdate);
+				assertTrue(context, subject.getUpdatedTick() <= tick);
+				assertFalse(context, subject.isAvailable() && subject.hasWitnessedDepletion());
+				if (id == rock.getDepletedState())
+				{
+					// A depleted sighting never leaves a respawn time that has already passed
+					assertTrue(context, subject.getRespawnTick() >= tick);
+				}
+
+				previousUpdate = subject.getUpdatedTick();
+			}
+		}
+	}
+}
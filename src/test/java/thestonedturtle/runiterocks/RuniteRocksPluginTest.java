@@ -1,13 +1,265 @@
 package thestonedturtle.runiterocks;
 
+import com.google.gson.Gson;
+import com.google.inject.Guice;
+import com.google.inject.testing.fieldbinder.Bind;
+import com.google.inject.testing.fieldbinder.BoundFieldModule;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import net.runelite.api.ChatMessageType;
+import net.runelite.api.Client;
+import net.runelite.api.GameState;
+import net.runelite.api.events.ChatMessage;
+import net.runelite.api.events.GameStateChanged;
+import net.runelite.api.events.GameTick;
+import net.runelite.client.Notifier;
 import net.runelite.client.RuneLite;
+import net.runelite.client.chat.ChatMessageManager;
+import net.runelite.client.config.ConfigManager;
+import net.runelite.client.eventbus.EventBus;
 import net.runelite.client.externalplugins.ExternalPluginManager;
+import net.runelite.client.game.WorldService;
+import net.runelite.client.ui.ClientToolbar;
+import net.runelite.client.ui.overlay.OverlayManager;
+import net.runelite.http.api.worlds.World;
+import net.runelite.http.api.worlds.WorldResult;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
+import org.mockito.junit.MockitoJUnitRunner;
 
+@RunWith(MockitoJUnitRunner.class)
 public class RuniteRocksPluginTest
 {
+	private static final World WORLD = FakeWorlds.world(301);
+	private static final World OTHER_WORLD = FakeWorlds.world(302);
+
+	@Mock
+	@Bind
+	private Client client;
+
+	@Mock
+	@Bind
+	private RuniteRocksConfig config;
+
+	@Mock
+	@Bind
+	private ConfigManager configManager;
+
+	@Mock
+	@Bind
+	private ChatMessageManager chatMessageManager;
+
+	@Mock
+	@Bind
+	private ClientToolbar clientToolbar;
+
+	@Mock
+	@Bind
+	private OverlayManager overlayManager;
+
+	@Mock
+	@Bind
+	private RuniteRocksOverlay overlay;
+
+	@Mock
+	@Bind
+	private RuniteRocksTileOverlay tileOverlay;
+
+	@Mock
+	@Bind
+	private SceneProbe sceneProbe;
+
+	@Mock
+	@Bind
+	private CompetitorDetector competitorDetector;
+
+	@Mock
+	@Bind
+	private WorldService worldService;
+
+	@Mock
+	@Bind
+	private ScheduledExecutorService executorService;
+
+	@Mock
+	@Bind
+	private Notifier notifier;
+
+	@Mock
+	@Bind
+	private EventBus eventBus;
+
+	@Bind
+	private final Gson gson = new Gson();
+
+	@Bind(to = GameClock.class)
+	private final FakeGameClock clock = new FakeGameClock();
+
+	@Inject
+	private RuniteRocksPlugin plugin;
+
+	private final Rock rock = ResourceCatalog.getInstance().getByKey("LAVA_MINE_1");
+	private int tickCount = 0;
+
 	public static void main(String[] args) throws Exception
 	{
 		ExternalPluginManager.loadBuiltin(RuniteRocksPlugin.class);
 		RuneLite.main(args);
 	}
-}
\ No newline at end of file
+
+	@Before
+	public void before()
+	{
+		Guice.createInjector(BoundFieldModule.of(this)).injectMembers(this);
+
+		// Not every test hops, or reaches a state that reads all of these
+		final WorldResult worldResult = mock(WorldResult.class);
+		lenient().when(worldResult.findWorld(WORLD.getId())).thenReturn(WORLD);
+		lenient().when(worldResult.findWorld(OTHER_WORLD.getId())).thenReturn(OTHER_WORLD);
+		lenient().when(worldService.getWorlds()).thenReturn(worldResult);
+		lenient().when(client.getTickCount()).thenAnswer(invocation -> tickCount);
+
+		setGameState(GameState.LOGGED_IN, WORLD);
+		plugin.startUp();
+		gameTick();
+	}
+
+	@Test
+	public void testStartsTrackingTheCurrentWorld()
+	{
+		assertSame(WORLD, plugin.getTracker().getWorld());
+		assertTrue(plugin.getTracker().getRuniteRocks().isEmpty());
+	}
+
+	@Test
+	public void testSpawnedRocksAreAppliedOnTheNextTick()
+	{
+		spawn(rock.getActivateState());
+		assertNull(plugin.getTracker().getRuniteRock(rock));
+
+		gameTick();
+		assertTrue(plugin.getTracker().getRuniteRock(rock).isAvailable());
+	}
+
+	@Test
+	public void testHoppingUpdatesTheLastSeenTimeOfSpawnedRocks()
+	{
+		spawn(rock.getActivateState());
+		gameTick();
+		final RuniteRock runiteRock = plugin.getTracker().getRuniteRock(rock);
+		final long seenBeforeHop = runiteRock.getLastSeenTick();
+
+		clock.advanceMillis(3 * GameClock.TICK_MILLIS);
+		changeGameState(GameState.HOPPING, WORLD);
+
+		assertEquals(clock.now(), runiteRock.getLastSeenTick());
+		assertTrue(runiteRock.getLastSeenTick() > seenBeforeHop);
+	}
+
+	@Test
+	public void testEventsWhileHoppingAreBufferedUntilLoggedIn()
+	{
+		spawn(rock.getActivateState());
+		gameTick();
+
+		changeGameState(GameState.HOPPING, WORLD);
+		changeGameState(GameState.LOADING, OTHER_WORLD);
+
+		// The new world loads with the rock depleted, before there is a tracker for it
+		spawn(rock.getDepletedState());
+		assertFalse(plugin.getWorldMap().containsKey(OTHER_WORLD.getId()));
+
+		changeGameState(GameState.LOGGED_IN, OTHER_WORLD);
+		assertSame(OTHER_WORLD, plugin.getTracker().getWorld());
+		assertNull(plugin.getTracker().getRuniteRock(rock));
+
+		gameTick();
+		final RuniteRock hoppedTo = plugin.getTracker().getRuniteRock(rock);
+		assertFalse(hoppedTo.isAvailable());
+		assertSame(OTHER_WORLD, hoppedTo.getWorld());
+
+		// The world that was left keeps its own state
+		assertTrue(plugin.getWorldMap().get(WORLD.getId()).getRuniteRock(rock).isAvailable());
+	}
+
+	@Test
+	public void testHoppingBackReusesTheTracker()
+	{
+		final WorldTracker original = plugin.getTracker();
+
+		changeGameState(GameState.HOPPING, WORLD);
+		changeGameState(GameState.LOADING, OTHER_WORLD);
+		changeGameState(GameState.LOGGED_IN, OTHER_WORLD);
+		changeGameState(GameState.HOPPING, OTHER_WORLD);
+		changeGameState(GameState.LOADING, WORLD);
+		changeGameState(GameState.LOGGED_IN, WORLD);
+
+		assertSame(original, plugin.getTracker());
+		assertEquals(2, plugin.getWorldMap().size());
+	}
+
+	@Test
+	public void testHopsAreCountedOnArrival()
+	{
+		changeGameState(GameState.HOPPING, WORLD);
+		assertEquals(0, plugin.getSessionStats().getTotalHops());
+
+		changeGameState(GameState.LOADING, OTHER_WORLD);
+		changeGameState(GameState.LOGGED_IN, OTHER_WORLD);
+		assertEquals(1, plugin.getSessionStats().getTotalHops());
+	}
+
+	@Test
+	public void testOnlyGameMessagesCountOre()
+	{
+		plugin.onChatMessage(chatMessage(ChatMessageType.PUBLICCHAT, SessionStats.MINED_MESSAGE));
+		assertEquals(0, plugin.getSessionStats().getTotalOre());
+
+		plugin.onChatMessage(chatMessage(ChatMessageType.SPAM, SessionStats.MINED_MESSAGE));
+		assertEquals(1, plugin.getSessionStats().getTotalOre());
+	}
+
+	private void setGameState(final GameState state, final World world)
+	{
+		lenient().when(client.getGameState()).thenReturn(state);
+		lenient().when(client.getWorld()).thenReturn(world.getId());
+	}
+
+	private void changeGameState(final GameState state, final World world)
+	{
+		setGameState(state, world);
+		final GameStateChanged event = new GameStateChanged();
+		event.setGameState(state);
+		plugin.onGameStateChanged(event);
+	}
+
+	private static ChatMessage chatMessage(final ChatMessageType type, final String message)
+	{
+		final ChatMessage event = new ChatMessage();
+		event.setType(type);
+		event.setMessage(message);
+		return event;
+	}
+
+	private void gameTick()
+	{
+		// The plugin advances the clock from the client tick count
+		tickCount++;
+		clock.advanceMillis(GameClock.TICK_MILLIS);
+		plugin.onGameTick(GameTick.INSTANCE);
+	}
+
+	private void spawn(final int objectId)
+	{
+		plugin.onGameObjectSpawned(FakeGameObject.spawned(rock.getWorldPoint(), objectId));
+	}
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import static org.junit.Assert.assertEquals;
+import org.junit.Before;
+import org.junit.Test;
+
+public class SessionStatsTest
+{
+	private static final long MINUTE = 60_000;
+	private static final double DELTA = 0.0001;
+
+	private SessionStats stats;
+
+	@Before
+	public void before()
+	{
+		stats = new SessionStats();
+		stats.reset(0);
+	}
+
+	@Test
+	public void testRatesNeedAMinuteOfData()
+	{
+		stats.onOreMined(1000);
+		assertEquals(-1, stats.getOrePerHour(MINUTE - 1), DELTA);
+		assertEquals(60, stats.getOrePerHour(MINUTE), DELTA);
+	}
+
+	@Test
+	public void testOldMinutesLeaveTheWindow()
+	{
+		stats.onOreMined(0);
+		stats.onHop(0);
+		for (int minute = 1; minute < 120; minute++)
+		{
+			stats.onOreMined(minute * MINUTE);
+		}
+
+		// Only the last hour counts towards the rates, but the totals cover the session
+		assertEquals(60, stats.getOrePerHour(120 * MINUTE - 1), 1);
+		assertEquals(0, stats.getHopsPerOre(120 * MINUTE), DELTA);
+		assertEquals(120, stats.getTotalOre());
+		assertEquals(1, stats.getTotalHops());
+	}
+
+	@Test
+	public void testLongGapClearsTheWindow()
+	{
+		stats.onOreMined(0);
+		assertEquals(0, stats.getOrePerHour(10 * SessionStats.HISTORY_MINUTES * MINUTE), DELTA);
+	}
+
+	@Test
+	public void testHopsPerOre()
+	{
+		assertEquals(-1, stats.getHopsPerOre(0), DELTA);
+
+		stats.onHop(0);
+		stats.onHop(1);
+		stats.onHop(2);
+		stats.onOreMined(3);
+		stats.onOreMined(4);
+		assertEquals(1.5, stats.getHopsPerOre(5), DELTA);
+	}
+
+	@Test
+	public void testActivityShares()
+	{
+		stats.setActivity(SessionStats.Activity.WALKING, 0);
+		stats.setActivity(SessionStats.Activity.HOPPING, 1000);
+		stats.setActivity(SessionStats.Activity.WAITING, 2000);
+		// Time on the login screen isn't counted
+		stats.setActivity(null, 4000);
+
+		final long now = 10_000;
+		assertEquals(0.25, stats.getActivityShare(SessionStats.Activity.WALKING, now), DELTA);
+		assertEquals(0.25, stats.getActivityShare(SessionStats.Activity.HOPPING, now), DELTA);
+		assertEquals(0.5, stats.getActivityShare(SessionStats.Activity.WAITING, now), DELTA);
+	}
+
+	@Test
+	public void testReset()
+	{
+		stats.onOreMined(0);
+		stats.onHop(0);
+		stats.setActivity(SessionStats.Activity.WALKING, 0);
+		stats.reset(MINUTE);
+
+		assertEquals(0, stats.getTotalOre());
+		assertEquals(0, stats.getTotalHops());
+		assertEquals(0, stats.getOrePerHour(2 * MINUTE), DELTA);
+		assertEquals(0, stats.getActivityShare(SessionStats.Activity.WALKING, 2 * MINUTE), DELTA);
+	}
+}
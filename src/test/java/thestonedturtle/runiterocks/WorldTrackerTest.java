@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2020, TheStonedTurtle <https://github.com/TheStonedTurtle>
+ * All rights reserved.
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions are met:
+ *
+ * 1. Redistributions of source code must retain the above copyright notice, this
+ *    list of conditions and the following disclaimer.
+ * 2. Redistributions in binary form must reproduce the above copyright notice,
+ *    this list of conditions and the following disclaimer in the documentation
+ *    and/or other materials provided with the distribution.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS" AND
+ * ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE IMPLIED
+ * WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+ * DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT OWNER OR CONTRIBUTORS BE LIABLE FOR
+ * ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES;
+ * LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED AND
+ * ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY, OR TORT
+ * (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE OF THIS
+ * SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package thestonedturtle.runiterocks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import net.runelite.api.coords.WorldPoint;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+public class WorldTrackerTest
+{
+	private final List<Transition> transitions = new ArrayList<>();
+	private FakeGameClock clock;
+	private WorldTracker tracker;
+	private Rock rock;
+
+	@Before
+	public void before()
+	{
+		clock = new FakeGameClock();
+		clock.tick(1);
+		tracker = new WorldTracker(FakeWorlds.world(301), clock,
+			(runiteRock, previousState, previousUpdatedTick) -> transitions.add(new Transition(runiteRock, previousState, previousUpdatedTick)));
+		rock = ResourceCatalog.getInstance().getByKey("LAVA_MINE_1");
+	}
+
+	@Test
+	public void testUnknownLocationIsIgnored()
+	{
+		assertNull(tracker.updateRockState(new WorldPoint(0, 0, 0), rock.getActivateState(), 5));
+		assertTrue(tracker.getRuniteRocks().isEmpty());
+		assertTrue(transitions.isEmpty());
+	}
+
+	@Test
+	public void testWorldPointLookup()
+	{
+		final RuniteRock runiteRock = tracker.updateRockState(rock.getWorldPoint(), rock.getActivateState(), 5);
+
+		assertNotNull(runiteRock);
+		assertSame(rock, runiteRock.getRock());
+		assertSame(runiteRock, tracker.getRuniteRock(rock));
+	}
+
+	@Test
+	public void testFirstSightingReportsUnknownState()
+	{
+		final RuniteRock runiteRock = tracker.updateRockState(rock, rock.getActivateState(), 5);
+
+		assertEquals(1, transitions.size());
+		assertSame(runiteRock, transitions.get(0).rock);
+		assertEquals(RockState.UNKNOWN, transitions.get(0).previousState);
+	}
+
+	@Test
+	public void testRepeatSightingIsNotATransition()
+	{
+		tracker.updateRockState(rock, rock.getActivateState(), 5);
+		tracker.updateRockState(rock, rock.getActivateState(), 6);
+
+		assertEquals(1, transitions.size());
+	}
+
+	@Test
+	public void testDepletionReportsPreviousState()
+	{
+		tracker.updateRockState(rock, rock.getActivateState(), 5);
+		tracker.updateRockState(rock, rock.getDepletedState(), 10);
+
+		assertEquals(2, transitions.size());
+		assertEquals(RockState.AVAILABLE, transitions.get(1).previousState);
+		assertEquals(5, transitions.get(1).previousUpdatedTick);
+	}
+
+	@Test
+	public void testUnwitnessedDepletionIsATransition()
+	{
+		tracker.updateRockState(rock, rock.getDepletedState(), 5);
+		final long tick = clock.now() + rock.getRespawnTicks() + 1;
+		tracker.updateRockState(rock, rock.getDepletedState(), tick);
+
+		// The state is the same but the timer was restarted
+		assertEquals(2, transitions.size());
+		assertEquals(RockState.DEPLETED, transitions.get(1).previousState);
+		assertEquals(tick, transitions.get(1).rock.getUpdatedTick());
+	}
+
+	@Test
+	public void testRemoveAndClear()
+	{
+		final Rock other = ResourceCatalog.getInstance().getByKey("LAVA_MINE_2");
+		tracker.updateRockState(rock, rock.getActivateState(), 5);
+		tracker.updateRockState(other, other.getActivateState(), 5);
+
+		tracker.removeRock(rock);
+		assertNull(tracker.getRuniteRock(rock));
+		assertEquals(1, tracker.getRuniteRocks().size());
+
+		tracker.clear();
+		assertTrue(tracker.getRuniteRocks().isEmpty());
+	}
+
+	/**
+	 * Every change to a rocks state or timer must be reported exactly once, and nothing else
+	 */
+	@Test
+	public void testRandomSightingsReportEveryChange()
+	{
+		final Random random = new Random(0x5EED);
+		final List<Rock> rocks = ResourceCatalog.getInstance().getRocks();
+		long tick = clock.now();
+
+		for (int i = 0; i < 10_000; i++)
+		{
+			tick += random.nextInt(200);
+			final Rock target = rocks.get(random.nextInt(rocks.size()));
+			final RuniteRock before = tracker.getRuniteRock(target);
+			final RockState previousState = before == null ? RockState.UNKNOWN : RockState.of(before);
+			final long previousUpdate = before == null ? -1 : before.getUpdatedTick();
+
+			final int id = random.nextBoolean() ? target.getActivateState() : target.getDepletedState();
+			transitions.clear();
+			final RuniteRock after = tracker.updateRockState(target, id, tick);
+
+			final boolean changed = previousState != RockState.of(after) || previousUpdate != after.getUpdatedTick();
+			assertEquals("step " + i, changed ? 1 : 0, transitions.size());
+			if (changed)
+			{
+				assertEquals("step " + i, previousState, transitions.get(0).previousState);
+			}
+		}
+	}
+
+	private static class Transition
+	{
+		private final RuniteRock rock;
+		private final RockState previousState;
+		private final long previousUpdatedTick;
+
+		private Transition(final RuniteRock rock, final RockState previousState, final long previousUpdatedTick)
+		{
+			this.rock = rock;
+			this.previousState = previousState;
+			this.previousUpdatedTick = previousUpdatedTick;
+		}
+	}
+}